@@ -0,0 +1,29 @@
+package io.github.yangziwen.diff.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The benchmark runner
+ * run the benchmarks with the jmh command line options, and always report the allocation rate by the gc profiler
+ *
+ * usage: java -jar diff-benchmarks/target/benchmarks.jar [jmh options] [benchmark regexp]
+ *
+ * @author yangziwen
+ */
+public class BenchmarkRunner {
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,63 @@
+package io.github.yangziwen.diff.benchmark;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.blame.BlameResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.github.yangziwen.diff.calculate.BlameCalculator;
+import io.github.yangziwen.diff.fixture.SyntheticRepository;
+import io.github.yangziwen.diff.fixture.SyntheticRepositoryGenerator;
+
+/**
+ * The benchmark of the blame calculator over deep histories
+ *
+ * @author yangziwen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BlameCalculatorBenchmark {
+
+    @Param({"100", "500"})
+    private int historyDepth;
+
+    private SyntheticRepository repository;
+
+    private BlameCalculator calculator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        repository = SyntheticRepositoryGenerator.builder()
+                .fileCount(10)
+                .linesPerFile(500)
+                .historyDepth(historyDepth)
+                .filesChangedPerCommit(2)
+                .checkout(false)
+                .build()
+                .generate(Files.createTempDirectory("blame-benchmark-").toFile());
+        calculator = BlameCalculator.builder().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        repository.delete();
+    }
+
+    @Benchmark
+    public List<BlameResult> calculate() throws Exception {
+        return calculator.calculate(repository.getDirectory(), repository.getPaths(), repository.getLastCommit());
+    }
+
+}
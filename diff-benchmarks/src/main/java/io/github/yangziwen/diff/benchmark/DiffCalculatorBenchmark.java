@@ -0,0 +1,88 @@
+package io.github.yangziwen.diff.benchmark;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.github.yangziwen.diff.calculate.AdaptiveDiffAlgorithm;
+import io.github.yangziwen.diff.calculate.DiffCalculator;
+import io.github.yangziwen.diff.calculate.DiffEntryWrapper;
+import io.github.yangziwen.diff.fixture.SyntheticRepository;
+import io.github.yangziwen.diff.fixture.SyntheticRepositoryGenerator;
+import io.github.yangziwen.diff.fixture.SyntheticRepositoryGenerator.SyntheticRepositoryGeneratorBuilder;
+
+/**
+ * The benchmark of the diff calculator
+ *
+ * @author yangziwen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DiffCalculatorBenchmark {
+
+    @Param({"MANY_FILES", "LARGE_FILES", "RENAMES", "STAGED"})
+    private String scenario;
+
+    private SyntheticRepository repository;
+
+    private DiffCalculator calculator;
+
+    private String oldRev;
+
+    private String newRev;
+
+    private boolean includeStagedCodes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SyntheticRepositoryGeneratorBuilder generator = SyntheticRepositoryGenerator.builder()
+                .seed(scenario.hashCode())
+                .checkout(false);
+        switch (scenario) {
+            case "MANY_FILES":
+                generator.fileCount(5000).filesChangedPerCommit(500);
+                break;
+            case "LARGE_FILES":
+                generator.fileCount(20).linesPerFile(20000).filesChangedPerCommit(20);
+                break;
+            case "RENAMES":
+                generator.fileCount(1000).filesChangedPerCommit(300).renameRatio(0.67);
+                break;
+            case "STAGED":
+                generator.fileCount(2000).historyDepth(0).stagedFileCount(200).checkout(true);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown scenario " + scenario);
+        }
+        repository = generator.build().generate(Files.createTempDirectory("diff-benchmark-").toFile());
+        calculator = DiffCalculator.builder()
+                .diffAlgorithm(new AdaptiveDiffAlgorithm())
+                .build();
+        includeStagedCodes = !repository.getStagedPaths().isEmpty();
+        oldRev = includeStagedCodes ? repository.getLastCommit() : repository.getFirstCommit();
+        newRev = repository.getLastCommit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        repository.delete();
+    }
+
+    @Benchmark
+    public List<DiffEntryWrapper> calculateDiff() throws Exception {
+        return calculator.calculateDiff(repository.getDirectory(), oldRev, newRev, includeStagedCodes);
+    }
+
+}
@@ -0,0 +1,89 @@
+package io.github.yangziwen.diff.benchmark;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.github.yangziwen.diff.calculate.DiffHelper;
+import io.github.yangziwen.diff.fixture.SyntheticRepository;
+import io.github.yangziwen.diff.fixture.SyntheticRepositoryGenerator;
+
+/**
+ * The benchmark of loading the contents of the diff entries
+ *
+ * @author yangziwen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DiffHelperBenchmark {
+
+    @Param({"100", "20000"})
+    private int lineCount;
+
+    private SyntheticRepository repository;
+
+    private Repository gitRepository;
+
+    private ObjectReader reader;
+
+    private List<DiffEntry> entries;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        repository = SyntheticRepositoryGenerator.builder()
+                .fileCount(100)
+                .linesPerFile(lineCount)
+                .filesChangedPerCommit(100)
+                .checkout(false)
+                .build()
+                .generate(Files.createTempDirectory("diff-helper-benchmark-").toFile());
+        gitRepository = new FileRepositoryBuilder().findGitDir(repository.getDirectory()).build();
+        reader = gitRepository.newObjectReader();
+        try (RevWalk revWalk = new RevWalk(reader)) {
+            RevCommit oldCommit = revWalk.parseCommit(ObjectId.fromString(repository.getFirstCommit()));
+            RevCommit newCommit = revWalk.parseCommit(ObjectId.fromString(repository.getLastCommit()));
+            try (DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+                formatter.setRepository(gitRepository);
+                entries = formatter.scan(oldCommit.getTree(), newCommit.getTree());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        reader.close();
+        gitRepository.close();
+        repository.delete();
+    }
+
+    @Benchmark
+    public void open(Blackhole blackhole) throws Exception {
+        for (DiffEntry entry : entries) {
+            blackhole.consume(DiffHelper.open(entry, DiffEntry.Side.OLD, reader, DiffHelper.DEFAULT_BIG_FILE_THRESHOLD));
+            blackhole.consume(DiffHelper.open(entry, DiffEntry.Side.NEW, reader, DiffHelper.DEFAULT_BIG_FILE_THRESHOLD));
+        }
+    }
+
+}
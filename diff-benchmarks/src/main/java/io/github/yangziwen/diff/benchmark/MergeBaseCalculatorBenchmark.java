@@ -0,0 +1,92 @@
+package io.github.yangziwen.diff.benchmark;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.github.yangziwen.diff.calculate.MergeBaseCalculator;
+import io.github.yangziwen.diff.calculate.RepositorySession;
+import io.github.yangziwen.diff.fixture.SyntheticRepository;
+import io.github.yangziwen.diff.fixture.SyntheticRepositoryGenerator;
+
+/**
+ * The benchmark of the merge base calculator between two diverged branches
+ *
+ * @author yangziwen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MergeBaseCalculatorBenchmark {
+
+    @Param({"100", "1000"})
+    private int historyDepth;
+
+    private SyntheticRepository repository;
+
+    private String mainRev;
+
+    private String branchRev;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        repository = SyntheticRepositoryGenerator.builder()
+                .fileCount(10)
+                .historyDepth(historyDepth + historyDepth / 2)
+                .branchDepth(historyDepth / 2)
+                .filesChangedPerCommit(1)
+                .checkout(false)
+                .build()
+                .generate(Files.createTempDirectory("merge-base-benchmark-").toFile());
+        mainRev = repository.getLastCommit();
+        branchRev = repository.getBranchCommits().get(repository.getBranchCommits().size() - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        repository.delete();
+    }
+
+    @Benchmark
+    public String calculateMergeBase() throws Exception {
+        return new MergeBaseCalculator().calculateMergeBase(repository.getDirectory(), mainRev, branchRev);
+    }
+
+    /**
+     * the merge bases of all the branch commits against the main branch, one walk for each commit
+     */
+    @Benchmark
+    public List<String> calculateMergeBasesOneByOne() throws Exception {
+        MergeBaseCalculator calculator = new MergeBaseCalculator();
+        List<String> mergeBases = new ArrayList<>();
+        try (RepositorySession session = RepositorySession.open(repository.getDirectory())) {
+            for (String rev : repository.getBranchCommits()) {
+                mergeBases.add(calculator.calculateMergeBase(session, rev, mainRev));
+            }
+        }
+        return mergeBases;
+    }
+
+    /**
+     * the merge bases of all the branch commits against the main branch, sharing a single walk
+     */
+    @Benchmark
+    public Map<String, String> calculateMergeBases() throws Exception {
+        return new MergeBaseCalculator().calculateMergeBases(
+                repository.getDirectory(), repository.getBranchCommits(), mainRev);
+    }
+
+}
@@ -43,7 +43,6 @@ import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.eclipse.jgit.diff.HistogramDiff;
 import org.eclipse.jgit.util.StringUtils;
 
 import com.puppycrawl.tools.checkstyle.AstTreeStringPrinter;
@@ -75,8 +74,10 @@ import com.puppycrawl.tools.checkstyle.utils.CommonUtil;
 import com.puppycrawl.tools.checkstyle.utils.XpathUtil;
 
 import io.github.yangziwen.checkstyle.filter.DiffLineFilter;
+import io.github.yangziwen.diff.calculate.AdaptiveDiffAlgorithm;
 import io.github.yangziwen.diff.calculate.DiffCalculator;
 import io.github.yangziwen.diff.calculate.DiffEntryWrapper;
+import io.github.yangziwen.diff.calculate.DiffProfile;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -254,17 +255,31 @@ public final class Main {
             oldRev = includeStagedCodes ? "HEAD" : "HEAD~";
         }
         String newRev = "HEAD";
-        DiffCalculator calculator = DiffCalculator.builder().diffAlgorithm(new HistogramDiff()).build();
+        DiffProfile profile = options.profile ? new DiffProfile() : null;
+        DiffCalculator calculator = DiffCalculator.builder()
+                .diffAlgorithm(new AdaptiveDiffAlgorithm())
+                .editListCacheEnabled(options.gitDiffCacheEnabled)
+                .pathFilter(path -> patternsToExclude.stream().noneMatch(p -> p.matcher(path).matches()))
+                .phaseListener(profile)
+                .fileTimeoutMillis(options.fileDiffTimeoutMillis)
+                .totalTimeoutMillis(options.totalDiffTimeoutMillis)
+                .build();
         try {
-            List<DiffEntryWrapper> diffEntryList = calculator.calculateDiff(repoDir, oldRev, newRev, includeStagedCodes)
-                    .stream()
-                    .filter(diffEntry -> !diffEntry.isDeleted())
-                    .filter(diffEntry -> patternsToExclude.stream()
-                            .noneMatch(p -> p.matcher(diffEntry.getNewPath()).matches()))
-                    .collect(Collectors.toList());
+            List<DiffEntryWrapper> diffEntryList = new ArrayList<>();
+            // only the entries to check are retained, the others are dropped as soon as they are calculated
+            calculator.calculateDiff(repoDir, oldRev, newRev, includeStagedCodes, diffEntry -> {
+                if (!diffEntry.isDeleted()) {
+                    diffEntryList.add(diffEntry);
+                }
+            });
 
             DIFF_ENTRY_LIST.addAll(diffEntryList);
 
+            if (profile != null) {
+                // the report may be written to stdout, so that the profile goes to stderr
+                System.err.print(profile.format());
+            }
+
             return diffEntryList.stream()
                     .map(DiffEntryWrapper::getNewFile)
                     .collect(Collectors.toList());
@@ -866,6 +881,26 @@ public final class Main {
                 description = "Whether to include indexed codes when calculating differencies of codes")
         private boolean gitIncludeStagedCodes;
 
+        /** Switch whether to cache the calculated diff edits under the git directory */
+        @Option(names = {"-dc", "--diff-cache"},
+                description = "Whether to cache the calculated diff edits in the .git/diff-check directory")
+        private boolean gitDiffCacheEnabled;
+
+        /** Switch whether to print the time spent on each phase of the diff calculation */
+        @Option(names = {"--profile"},
+                description = "Whether to print the time, bytes and files spent on each phase of the diff calculation")
+        private boolean profile;
+
+        /** The max time to diff one file, the file taking longer is checked as changed as a whole */
+        @Option(names = {"--file-diff-timeout"},
+                description = "The max milliseconds to diff one file, the file taking longer is checked as a whole")
+        private long fileDiffTimeoutMillis;
+
+        /** The max time to diff all the files, the files left are checked as changed as a whole */
+        @Option(names = {"--total-diff-timeout"},
+                description = "The max milliseconds to diff all the files, the files left are checked as a whole")
+        private long totalDiffTimeoutMillis;
+
         /**
          * Gets the list of exclusions provided through the command line arguments.
          *
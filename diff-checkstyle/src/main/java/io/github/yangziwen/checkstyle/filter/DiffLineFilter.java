@@ -4,15 +4,13 @@ import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.collections.CollectionUtils;
-import org.eclipse.jgit.diff.Edit;
-
 import com.puppycrawl.tools.checkstyle.api.AuditEvent;
 import com.puppycrawl.tools.checkstyle.api.AutomaticBean;
 import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
 import com.puppycrawl.tools.checkstyle.api.Filter;
 import com.puppycrawl.tools.checkstyle.checks.whitespace.EmptyLineSeparatorCheck;
 
+import io.github.yangziwen.diff.calculate.ChangedLines;
 import io.github.yangziwen.diff.calculate.DiffEntryWrapper;
 
 /**
@@ -22,11 +20,11 @@ import io.github.yangziwen.diff.calculate.DiffEntryWrapper;
  */
 public class DiffLineFilter extends AutomaticBean implements Filter {
 
-    private final ConcurrentMap<String, List<Edit>> fileEditMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ChangedLines> fileChangedLinesMap = new ConcurrentHashMap<>();
 
     public DiffLineFilter(List<DiffEntryWrapper> diffEntryList) {
         for (DiffEntryWrapper diffEntry : diffEntryList) {
-            fileEditMap.put(diffEntry.getAbsoluteNewPath(), diffEntry.getEditList());
+            fileChangedLinesMap.put(diffEntry.getAbsoluteNewPath(), ChangedLines.of(diffEntry.getEditList()));
         }
     }
 
@@ -37,19 +35,14 @@ public class DiffLineFilter extends AutomaticBean implements Filter {
      */
     @Override
     public boolean accept(AuditEvent event) {
-        List<Edit> editList = fileEditMap.get(event.getFileName());
-        if (CollectionUtils.isEmpty(editList)) {
+        ChangedLines changedLines = fileChangedLinesMap.get(event.getFileName());
+        if (changedLines == null || changedLines.isEmpty()) {
             return false;
         }
-        for (Edit edit : editList) {
-            if (edit.getBeginB() < event.getLine() && edit.getEndB() >= event.getLine()) {
-                return true;
-            }
-            if (isEmptyLineSeparatorCheck(event) && event.getLine() == edit.getEndB() + 1) {
-                return true;
-            }
+        if (changedLines.contains(event.getLine())) {
+            return true;
         }
-        return false;
+        return isEmptyLineSeparatorCheck(event) && changedLines.follows(event.getLine());
     }
 
     @Override
@@ -0,0 +1,103 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.HistogramDiff;
+import org.eclipse.jgit.diff.MyersDiff;
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.diff.SequenceComparator;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The adaptive diff algorithm
+ * choose the diff algorithm for each file by the size and the line uniqueness of the region to diff,
+ * the histogram diff is used for the ordinary files, the myers diff is used for the large and highly repetitive ones,
+ * and the whole region is reported as replaced when it is too large to diff
+ *
+ * @author yangziwen
+ */
+@Getter
+@Setter
+public class AdaptiveDiffAlgorithm extends DiffAlgorithm {
+
+    /**
+     * the regions with fewer lines in total are always diffed with the histogram diff
+     */
+    private int minLinesToAnalyze = 1000;
+
+    /**
+     * the regions with more lines in total are reported as replaced without diffing
+     */
+    private int maxLines = 200000;
+
+    /**
+     * the regions whose ratio of the distinct lines is lower are considered highly repetitive
+     */
+    private double uniqueLineRatio = 0.5;
+
+    /**
+     * the max number of lines sampled to calculate the ratio of the distinct lines
+     */
+    private int sampleSize = 8192;
+
+    @Getter(AccessLevel.NONE)
+    private final HistogramDiff histogramDiff = new HistogramDiff();
+
+    @Override
+    public <S extends Sequence> EditList diffNonCommon(SequenceComparator<? super S> cmp, S a, S b) {
+        DiffAlgorithm algorithm = selectAlgorithm(cmp, a, b);
+        if (algorithm == null) {
+            return EditList.singleton(new Edit(0, a.size(), 0, b.size()));
+        }
+        return algorithm.diffNonCommon(cmp, a, b);
+    }
+
+    /**
+     * describe the settings deciding the selected algorithm, so that the edits cached with other settings are not reused
+     */
+    @Override
+    public String toString() {
+        return getClass().getName() + "(" + minLinesToAnalyze + "," + maxLines + "," + uniqueLineRatio + "," + sampleSize + ")";
+    }
+
+    /**
+     * select the algorithm for the region
+     *
+     * @return the selected algorithm, or null if the region is too large to diff
+     */
+    <S extends Sequence> DiffAlgorithm selectAlgorithm(SequenceComparator<? super S> cmp, S a, S b) {
+        long lines = (long) a.size() + b.size();
+        if (lines < minLinesToAnalyze) {
+            return histogramDiff;
+        }
+        if (lines > maxLines) {
+            return null;
+        }
+        return calculateUniqueLineRatio(cmp, a) < uniqueLineRatio
+                || calculateUniqueLineRatio(cmp, b) < uniqueLineRatio
+                ? MyersDiff.INSTANCE
+                : histogramDiff;
+    }
+
+    private <S extends Sequence> double calculateUniqueLineRatio(SequenceComparator<? super S> cmp, S seq) {
+        if (seq.size() == 0) {
+            return 1;
+        }
+        int step = Math.max(1, seq.size() / sampleSize);
+        Set<Integer> hashSet = new HashSet<>();
+        int sampled = 0;
+        for (int i = 0; i < seq.size(); i += step) {
+            hashSet.add(cmp.hash(seq, i));
+            sampled++;
+        }
+        return (double) hashSet.size() / sampled;
+    }
+
+}
@@ -0,0 +1,36 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The async helper
+ * Run the calculations on the executor and complete the futures with their results,
+ * the exceptions thrown by the calculations complete the futures exceptionally as they are
+ *
+ * @author yangziwen
+ */
+class AsyncHelper {
+
+    private AsyncHelper() {}
+
+    static <T> CompletableFuture<T> supplyAsync(Calculation<T> calculation, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(calculation.calculate());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    @FunctionalInterface
+    interface Calculation<T> {
+
+        T calculate() throws Exception;
+
+    }
+
+}
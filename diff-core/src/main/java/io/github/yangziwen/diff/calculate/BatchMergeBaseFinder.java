@@ -0,0 +1,130 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+
+/**
+ * The batch merge base finder
+ * find the merge bases of many commits against the same target commit,
+ * all the ancestors of the target are flagged once on the second query and the flags are kept for the rest of the batch,
+ * so that each commit is only walked until the ancestors of the target are reached.
+ * The walk follows the parents instead of the commit times, so that the clock skew never changes the result.
+ * The ancestors of the target first reached by the walk contain all the best common ancestors,
+ * when only one is reached it is the merge base, otherwise the merge base filter of jgit is used,
+ * so that the same merge base is chosen among the criss-cross ones
+ *
+ * @author yangziwen
+ */
+class BatchMergeBaseFinder {
+
+    private final RevWalk walk;
+
+    private final RevCommit target;
+
+    private final RevFlag targetFlag;
+
+    private final RevFlag seenFlag;
+
+    /**
+     * whether any merge base is queried, the first query is answered without the flags of the target ancestors
+     */
+    private boolean queried;
+
+    /**
+     * whether the ancestors of the target are flagged, which is done only once for all the later queries of the batch
+     */
+    private boolean targetAncestorsFlagged;
+
+    BatchMergeBaseFinder(RevWalk walk, RevCommit target) {
+        this.walk = walk;
+        this.target = target;
+        this.targetFlag = walk.newFlag("TARGET");
+        this.seenFlag = walk.newFlag("SEEN");
+    }
+
+    /**
+     * find the merge base of the commit and the target
+     *
+     * @param commit            the commit parsed by the walk of the finder
+     * @return the merge base, or null if there is no merge base
+     * @throws IOException      throw IOException when failed to parse the commits
+     */
+    RevCommit findMergeBase(RevCommit commit) throws IOException {
+        // the whole history of the target is only worth walking when there are more commits to query
+        if (!queried) {
+            queried = true;
+            return findMergeBaseByFilter(commit);
+        }
+        if (!targetAncestorsFlagged) {
+            flagTargetAncestors();
+            targetAncestorsFlagged = true;
+        }
+        List<RevCommit> reachedAncestors = new ArrayList<>();
+        Deque<RevCommit> queue = new ArrayDeque<>();
+        List<RevCommit> seenCommits = new ArrayList<>();
+        markSeen(commit, queue, seenCommits);
+        try {
+            while (!queue.isEmpty()) {
+                RevCommit current = queue.poll();
+                // the ancestors of a common ancestor are common ancestors as well, but never better ones
+                if (current.has(targetFlag)) {
+                    reachedAncestors.add(current);
+                    if (reachedAncestors.size() > 1) {
+                        return findMergeBaseByFilter(commit);
+                    }
+                    continue;
+                }
+                for (RevCommit parent : current.getParents()) {
+                    if (!parent.has(seenFlag)) {
+                        walk.parseHeaders(parent);
+                        markSeen(parent, queue, seenCommits);
+                    }
+                }
+            }
+            return reachedAncestors.isEmpty() ? null : reachedAncestors.get(0);
+        } finally {
+            for (RevCommit seenCommit : seenCommits) {
+                seenCommit.remove(seenFlag);
+            }
+        }
+    }
+
+    private void markSeen(RevCommit commit, Deque<RevCommit> queue, List<RevCommit> seenCommits) {
+        commit.add(seenFlag);
+        seenCommits.add(commit);
+        queue.add(commit);
+    }
+
+    private void flagTargetAncestors() throws IOException {
+        Deque<RevCommit> stack = new ArrayDeque<>();
+        target.add(targetFlag);
+        stack.push(target);
+        while (!stack.isEmpty()) {
+            for (RevCommit parent : stack.pop().getParents()) {
+                if (!parent.has(targetFlag)) {
+                    walk.parseHeaders(parent);
+                    parent.add(targetFlag);
+                    stack.push(parent);
+                }
+            }
+        }
+    }
+
+    private RevCommit findMergeBaseByFilter(RevCommit commit) throws IOException {
+        try (RevWalk filterWalk = new RevWalk(walk.getObjectReader())) {
+            filterWalk.setRevFilter(RevFilter.MERGE_BASE);
+            filterWalk.markStart(filterWalk.parseCommit(commit));
+            filterWalk.markStart(filterWalk.parseCommit(target));
+            return filterWalk.next();
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * The blame cache
+ * cache the bounded blame results keyed by the start commit, the base commit and the path of the files,
+ * so that the successive builds of the same branch do not blame the same files from the same commits again.
+ * The lines of the results are stored as run lengths of the indexes of the source commits,
+ * and the persons of the source commits are stored once in a table
+ *
+ * @author yangziwen
+ */
+public class BlameCache extends PersistentLruCache<BoundedBlameResult> {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private static final String FILE_NAME = "blame.cache";
+
+    private static final String FORMAT = "blame-cache-v1";
+
+    private static final ConcurrentMap<File, BlameCache> CACHES = new ConcurrentHashMap<>();
+
+    BlameCache(File file, int maxEntries) {
+        super(file, maxEntries);
+    }
+
+    /**
+     * get the blame cache of the repository,
+     * the cache is shared by all the calculations against the same repository in the jvm,
+     * and keeps the largest bound requested by them
+     *
+     * @param repository    the repository
+     * @param maxEntries    the max number of cached blame results
+     * @return the blame cache
+     */
+    public static BlameCache open(Repository repository, int maxEntries) {
+        File file = new File(new File(repository.getDirectory(), CACHE_DIR_NAME), FILE_NAME).getAbsoluteFile();
+        BlameCache cache = CACHES.computeIfAbsent(file, key -> new BlameCache(key, maxEntries));
+        if (cache.getMaxEntries() < maxEntries) {
+            cache.setMaxEntries(maxEntries);
+        }
+        return cache;
+    }
+
+    /**
+     * get the cached blame result which has blamed all the lines in the new side of the edits
+     *
+     * @param startId       the commit the blame starts from
+     * @param baseId        the commit the blame stops at, null if the whole history is walked
+     * @param path          the path of the file in the start commit
+     * @param comparator    the comparator
+     * @param editList      the edits to blame
+     * @return the cached result, or null if not cached or not covering the edits
+     */
+    public BoundedBlameResult get(
+            AnyObjectId startId,
+            AnyObjectId baseId,
+            String path,
+            RawTextComparator comparator,
+            List<Edit> editList) {
+        BoundedBlameResult result = get(toKey(startId, baseId, path, comparator));
+        return result != null && result.covers(editList) ? result : null;
+    }
+
+    public void put(
+            AnyObjectId startId,
+            AnyObjectId baseId,
+            String path,
+            RawTextComparator comparator,
+            BoundedBlameResult result) {
+        put(toKey(startId, baseId, path, comparator), result);
+    }
+
+    private static String toKey(
+            AnyObjectId startId,
+            AnyObjectId baseId,
+            String path,
+            RawTextComparator comparator) {
+        return startId.name()
+                + ":" + (baseId != null ? baseId : ObjectId.zeroId()).name()
+                + ":" + EditListCache.getComparatorName(comparator)
+                + ":" + path;
+    }
+
+    @Override
+    protected String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    protected BoundedBlameResult readValue(DataInput in) throws IOException {
+        String path = in.readUTF();
+        PersonIdent[] persons = new PersonIdent[in.readInt()];
+        for (int i = 0; i < persons.length; i++) {
+            persons[i] = new PersonIdent(in.readUTF(), in.readUTF(), in.readLong(), in.readInt());
+        }
+        int commitCount = in.readInt();
+        ObjectId[] commitIds = new ObjectId[commitCount];
+        int[] authorIndexes = new int[commitCount];
+        int[] committerIndexes = new int[commitCount];
+        byte[] rawId = new byte[Constants.OBJECT_ID_LENGTH];
+        for (int i = 0; i < commitCount; i++) {
+            in.readFully(rawId);
+            commitIds[i] = ObjectId.fromRaw(rawId);
+            authorIndexes[i] = in.readInt();
+            committerIndexes[i] = in.readInt();
+        }
+        int[] sourceIndexes = new int[in.readInt()];
+        for (int line = 0; line < sourceIndexes.length;) {
+            int sourceIndex = in.readInt();
+            int length = in.readInt();
+            for (int end = line + length; line < end; line++) {
+                sourceIndexes[line] = sourceIndex;
+            }
+        }
+        return new BoundedBlameResult(path, persons, commitIds, authorIndexes, committerIndexes, sourceIndexes);
+    }
+
+    @Override
+    protected void writeValue(DataOutput out, BoundedBlameResult value) throws IOException {
+        out.writeUTF(value.getResultPath());
+        out.writeInt(value.getPersons().length);
+        for (PersonIdent person : value.getPersons()) {
+            out.writeUTF(person.getName());
+            out.writeUTF(person.getEmailAddress());
+            out.writeLong(person.getWhen().getTime());
+            out.writeInt(person.getTimeZoneOffset());
+        }
+        out.writeInt(value.getCommitIds().length);
+        byte[] rawId = new byte[Constants.OBJECT_ID_LENGTH];
+        for (int i = 0; i < value.getCommitIds().length; i++) {
+            value.getCommitIds()[i].copyRawTo(rawId, 0);
+            out.write(rawId);
+            out.writeInt(value.getAuthorIndexes()[i]);
+            out.writeInt(value.getCommitterIndexes()[i]);
+        }
+        // most of the lines are not blamed, so that the indexes are written as runs
+        int[] sourceIndexes = value.getSourceIndexes();
+        out.writeInt(sourceIndexes.length);
+        for (int line = 0; line < sourceIndexes.length;) {
+            int end = line + 1;
+            while (end < sourceIndexes.length && sourceIndexes[end] == sourceIndexes[line]) {
+                end++;
+            }
+            out.writeInt(sourceIndexes[line]);
+            out.writeInt(end - line);
+            line = end;
+        }
+    }
+
+}
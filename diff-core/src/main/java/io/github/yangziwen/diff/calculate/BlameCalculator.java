@@ -1,16 +1,30 @@
 package io.github.yangziwen.diff.calculate;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.blame.BlameGenerator;
 import org.eclipse.jgit.blame.BlameResult;
+import org.eclipse.jgit.diff.DiffConfig;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.HistogramDiff;
 import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
 
 import lombok.Builder;
 import lombok.Getter;
@@ -25,23 +39,342 @@ import lombok.Getter;
 @Builder
 public class BlameCalculator {
 
+    /**
+     * the max number of the first parent commits to look up in the blame cache
+     */
+    private static final int MAX_CACHE_EXTENSION_DEPTH = 32;
+
     @Builder.Default
     private RawTextComparator comparator = RawTextComparator.DEFAULT;
 
+    /**
+     * the max number of threads used to blame the files, the files are blamed sequentially when it is not greater than 1,
+     * the results are always in the order of the files
+     */
+    @Builder.Default
+    private int parallelism = 1;
+
+    /**
+     * whether to keep the bounded blame results in the blame cache under the git directory
+     */
+    @Builder.Default
+    private boolean blameCacheEnabled = false;
+
+    @Builder.Default
+    private int blameCacheSize = BlameCache.DEFAULT_MAX_ENTRIES;
+
     public List<BlameResult> calculate(
             File repoDir,
             List<String> filePathList,
             String startRev) throws Exception {
-        try (Git git = Git.open(repoDir);
-                ObjectReader reader = git.getRepository().newObjectReader();
-                RevWalk rw = new RevWalk(git.getRepository())) {
-            RevCommit startCommit = rw.parseCommit(git.getRepository().resolve(startRev));
-            List<BlameResult> resultList = new ArrayList<>();
-            for (String filePath : filePathList) {
-                BlameResult result = calculateBlame(filePath, startCommit, git);
-                resultList.add(result);
+        try (RepositorySession session = RepositorySession.open(repoDir)) {
+            return calculate(session, filePathList, startRev);
+        }
+    }
+
+    /**
+     * calculate the blame results of the files with the opened repository session
+     *
+     * @param session           the repository session
+     * @param filePathList      the repository relative paths of the files
+     * @param startRev          the revision to start the blame from
+     * @return the blame results
+     * @throws Exception        throw Exception when error happens
+     */
+    public List<BlameResult> calculate(
+            RepositorySession session,
+            List<String> filePathList,
+            String startRev) throws Exception {
+        RevCommit startCommit = session.parseCommit(startRev);
+        List<BlameResult> resultList = new ArrayList<>();
+        // each blame walks the history with its own object reader created from the repository
+        // the blame of jgit opens its own reader, so that the workers do not need one
+        ParallelHelper.forEachOrdered(parallelism, filePathList,
+                filePath -> calculateBlame(filePath, startCommit, session.getGit()),
+                resultList::add);
+        return resultList;
+    }
+
+    /**
+     * calculate the blame results of the files on the executor
+     *
+     * @param repoDir           the git directory
+     * @param filePathList      the repository relative paths of the files
+     * @param startRev          the revision to start the blame from
+     * @param executor          the executor to run the calculation
+     * @return the future of the blame results
+     */
+    public CompletableFuture<List<BlameResult>> calculateAsync(
+            File repoDir,
+            List<String> filePathList,
+            String startRev,
+            Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculate(repoDir, filePathList, startRev), executor);
+    }
+
+    /**
+     * calculate the blame results of the files with the opened repository session on the executor,
+     * the session should not be used by others until the future is completed
+     *
+     * @param session           the repository session
+     * @param filePathList      the repository relative paths of the files
+     * @param startRev          the revision to start the blame from
+     * @param executor          the executor to run the calculation
+     * @return the future of the blame results
+     */
+    public CompletableFuture<List<BlameResult>> calculateAsync(
+            RepositorySession session,
+            List<String> filePathList,
+            String startRev,
+            Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculate(session, filePathList, startRev), executor);
+    }
+
+    /**
+     * calculate the blame results of the changed lines of the diff entries,
+     * the blame of each file stops as soon as the sources of the lines inserted or replaced by its edits are found,
+     * so that the other lines are left unknown in the results and the results can not be computed further,
+     * the deleted entries and the files missing in the start revision, such as the ones only added to the index, are skipped
+     *
+     * @param repoDir           the git directory
+     * @param entries           the diff entries
+     * @param startRev          the revision to start the blame from
+     * @return the blame results
+     * @throws Exception        throw Exception when error happens
+     */
+    public List<BlameResult> calculateChangedLines(
+            File repoDir,
+            List<DiffEntryWrapper> entries,
+            String startRev) throws Exception {
+        try (RepositorySession session = RepositorySession.open(repoDir)) {
+            return calculateChangedLines(session, entries, startRev);
+        }
+    }
+
+    /**
+     * calculate the blame results of the changed lines of the diff entries with the opened repository session
+     *
+     * @param session           the repository session
+     * @param entries           the diff entries
+     * @param startRev          the revision to start the blame from
+     * @return the blame results
+     * @throws Exception        throw Exception when error happens
+     */
+    public List<BlameResult> calculateChangedLines(
+            RepositorySession session,
+            List<DiffEntryWrapper> entries,
+            String startRev) throws Exception {
+        RevCommit startCommit = session.parseCommit(startRev);
+        List<DiffEntryWrapper> entriesToBlame = entries.stream()
+                .filter(entry -> !entry.isDeleted())
+                .collect(Collectors.toList());
+        List<BlameResult> resultList = new ArrayList<>();
+        ParallelHelper.forEachOrdered(parallelism, entriesToBlame,
+                entry -> calculateChangedLinesBlame(entry, startCommit, session.getGit()),
+                result -> {
+                    // the files only added to the index do not exist in the start revision
+                    if (result != null) {
+                        resultList.add(result);
+                    }
+                });
+        return resultList;
+    }
+
+    public CompletableFuture<List<BlameResult>> calculateChangedLinesAsync(
+            File repoDir,
+            List<DiffEntryWrapper> entries,
+            String startRev,
+            Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculateChangedLines(repoDir, entries, startRev), executor);
+    }
+
+    public CompletableFuture<List<BlameResult>> calculateChangedLinesAsync(
+            RepositorySession session,
+            List<DiffEntryWrapper> entries,
+            String startRev,
+            Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculateChangedLines(session, entries, startRev), executor);
+    }
+
+    /**
+     * calculate the blame results of the changed lines of the diff entries, which are traced back to the base revision only,
+     * the lines already existing in the base revision are marked as pre-existing instead of being traced further,
+     * so that the cost depends on the length of the branch instead of the age of the files,
+     * the deleted entries are skipped
+     *
+     * @param repoDir           the git directory
+     * @param entries           the diff entries
+     * @param baseRev           the revision to stop the blame at, usually the old revision of the diff
+     * @param startRev          the revision to start the blame from
+     * @return the blame results
+     * @throws Exception        throw Exception when error happens
+     */
+    public List<BoundedBlameResult> calculateBoundedChangedLines(
+            File repoDir,
+            List<DiffEntryWrapper> entries,
+            String baseRev,
+            String startRev) throws Exception {
+        try (RepositorySession session = RepositorySession.open(repoDir)) {
+            return calculateBoundedChangedLines(session, entries, baseRev, startRev);
+        }
+    }
+
+    /**
+     * calculate the blame results of the changed lines of the diff entries with the opened repository session,
+     * which are traced back to the base revision only
+     *
+     * @param session           the repository session
+     * @param entries           the diff entries
+     * @param baseRev           the revision to stop the blame at, the whole history is walked if it is blank
+     * @param startRev          the revision to start the blame from
+     * @return the blame results
+     * @throws Exception        throw Exception when error happens
+     */
+    public List<BoundedBlameResult> calculateBoundedChangedLines(
+            RepositorySession session,
+            List<DiffEntryWrapper> entries,
+            String baseRev,
+            String startRev) throws Exception {
+        RevCommit startCommit = session.parseCommit(startRev);
+        RevCommit baseCommit = baseRev != null && !baseRev.trim().isEmpty()
+                ? session.parseCommit(baseRev)
+                : null;
+        DiffConfig diffConfig = session.getRepository().getConfig().get(DiffConfig.KEY);
+        List<DiffEntryWrapper> entriesToBlame = entries.stream()
+                .filter(entry -> !entry.isDeleted())
+                .collect(Collectors.toList());
+        BlameCache cache = blameCacheEnabled ? BlameCache.open(session.getRepository(), blameCacheSize) : null;
+        List<BoundedBlameResult> resultList = new ArrayList<>();
+        // the results share the persons, since most of the changed files are committed by the same few persons
+        Map<String, PersonIdent> internedPersons = new HashMap<>();
+        // the files changed together are renamed in the same commits, so that the renames are detected once for all of them
+        Map<String, Map<String, String>> renameCache = new ConcurrentHashMap<>();
+        try {
+            ParallelHelper.forEachOrdered(session.getRepository(), session.getReader(), parallelism, entriesToBlame,
+                    (entry, reader) -> calculateBoundedChangedLinesBlame(
+                            entry, startCommit, baseCommit, reader, diffConfig, cache, renameCache),
+                    result -> {
+                        // the files only added to the index do not exist in the start revision
+                        if (result != null) {
+                            resultList.add(result.intern(internedPersons));
+                        }
+                    });
+        } finally {
+            if (cache != null) {
+                cache.flushQuietly();
+            }
+        }
+        return resultList;
+    }
+
+    public CompletableFuture<List<BoundedBlameResult>> calculateBoundedChangedLinesAsync(
+            File repoDir,
+            List<DiffEntryWrapper> entries,
+            String baseRev,
+            String startRev,
+            Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculateBoundedChangedLines(repoDir, entries, baseRev, startRev), executor);
+    }
+
+    public CompletableFuture<List<BoundedBlameResult>> calculateBoundedChangedLinesAsync(
+            RepositorySession session,
+            List<DiffEntryWrapper> entries,
+            String baseRev,
+            String startRev,
+            Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculateBoundedChangedLines(session, entries, baseRev, startRev), executor);
+    }
+
+    private BoundedBlameResult calculateBoundedChangedLinesBlame(
+            DiffEntryWrapper entry,
+            RevCommit startCommit,
+            RevCommit baseCommit,
+            ObjectReader reader,
+            DiffConfig diffConfig,
+            BlameCache cache,
+            Map<String, Map<String, String>> renameCache) throws IOException {
+        String path = entry.getNewPath();
+        List<Edit> editList = entry.getEditList();
+        if (cache != null) {
+            BoundedBlameResult result = getCachedBlame(path, startCommit, baseCommit, editList, reader, cache);
+            if (result != null) {
+                return result;
+            }
+        }
+        BoundedBlameResult result = new BoundedBlameGenerator(
+                reader, diffConfig, new HistogramDiff(), comparator, renameCache)
+                .blame(path, startCommit, baseCommit, editList);
+        if (cache != null && result != null) {
+            cache.put(startCommit, baseCommit, path, comparator, result);
+        }
+        return result;
+    }
+
+    /**
+     * get the cached blame result of the file from the start commit,
+     * or from the nearest first parent commit with the same content of the file,
+     * since all the lines of the file are passed to that commit unchanged,
+     * the result found from the parent commit is cached for the start commit as well
+     */
+    private BoundedBlameResult getCachedBlame(
+            String path,
+            RevCommit startCommit,
+            RevCommit baseCommit,
+            List<Edit> editList,
+            ObjectReader reader,
+            BlameCache cache) throws IOException {
+        BoundedBlameResult result = cache.get(startCommit, baseCommit, path, comparator, editList);
+        if (result != null) {
+            return result;
+        }
+        try (RevWalk walk = new RevWalk(reader)) {
+            RevCommit commit = walk.parseCommit(startCommit);
+            ObjectId blobId = findBlob(reader, commit, path);
+            for (int depth = 0; blobId != null && depth < MAX_CACHE_EXTENSION_DEPTH; depth++) {
+                if (commit.getParentCount() == 0 || commit.equals(baseCommit)) {
+                    return null;
+                }
+                commit = walk.parseCommit(commit.getParent(0));
+                if (commit.equals(baseCommit) || !blobId.equals(findBlob(reader, commit, path))) {
+                    return null;
+                }
+                result = cache.get(commit, baseCommit, path, comparator, editList);
+                if (result != null) {
+                    cache.put(startCommit, baseCommit, path, comparator, result);
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    private ObjectId findBlob(ObjectReader reader, RevCommit commit, String path) throws IOException {
+        try (TreeWalk treeWalk = TreeWalk.forPath(reader, path, commit.getTree())) {
+            return treeWalk != null ? treeWalk.getObjectId(0) : null;
+        }
+    }
+
+    private BlameResult calculateChangedLinesBlame(
+            DiffEntryWrapper entry,
+            RevCommit startCommit,
+            Git git) throws IOException {
+        try (BlameGenerator generator = new BlameGenerator(git.getRepository(), entry.getNewPath())) {
+            generator.setTextComparator(comparator);
+            generator.setFollowFileRenames(true);
+            generator.push(null, startCommit);
+            BlameResult result = BlameResult.create(generator);
+            if (result == null) {
+                return null;
+            }
+            int lineCount = result.getResultContents().size();
+            for (Edit edit : entry.getEditList()) {
+                // the edits of the staged codes may exceed the committed content which the blame starts from
+                int end = Math.min(edit.getEndB(), lineCount);
+                if (edit.getBeginB() < end) {
+                    result.computeRange(edit.getBeginB(), end);
+                }
             }
-            return resultList;
+            return result;
         }
     }
 
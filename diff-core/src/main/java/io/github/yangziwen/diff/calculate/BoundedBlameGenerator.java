@@ -0,0 +1,358 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffConfig;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * The bounded blame generator
+ * blame the lines of a file by walking only the commits between the base revision and the start revision,
+ * the lines passed to the base revision or its ancestors are marked as pre-existing,
+ * so that the cost depends on the length of the branch instead of the age of the file.
+ * The blame of jgit can not be stopped at a commit, so the walk is done here with the same rules,
+ * each line is passed to the first parent containing it, and blamed to the commit when no parent contains it.
+ *
+ * @author yangziwen
+ */
+class BoundedBlameGenerator {
+
+    private final ObjectReader reader;
+
+    private final DiffConfig diffConfig;
+
+    private final DiffAlgorithm diffAlgorithm;
+
+    private final RawTextComparator comparator;
+
+    /**
+     * the renames between the parents and the commits, keyed by the ids of both commits,
+     * the map is shared by the generators of the same calculation, so that it should be thread safe
+     */
+    private final Map<String, Map<String, String>> renameCache;
+
+    BoundedBlameGenerator(
+            ObjectReader reader,
+            DiffConfig diffConfig,
+            DiffAlgorithm diffAlgorithm,
+            RawTextComparator comparator,
+            Map<String, Map<String, String>> renameCache) {
+        this.reader = reader;
+        this.diffConfig = diffConfig;
+        this.diffAlgorithm = diffAlgorithm;
+        this.comparator = comparator;
+        this.renameCache = renameCache;
+    }
+
+    /**
+     * blame the lines in the new side of the edits
+     *
+     * @param path              the path of the file in the start revision
+     * @param startId           the commit to start the blame from
+     * @param baseId            the commit to stop the blame at, the whole history is walked if it is null
+     * @param editList          the edits whose new side are blamed
+     * @return the blame result, or null if the file does not exist in the start revision
+     * @throws IOException      throw IOException when failed to read the objects
+     */
+    BoundedBlameResult blame(
+            String path,
+            AnyObjectId startId,
+            AnyObjectId baseId,
+            List<Edit> editList) throws IOException {
+        try (RevWalk walk = new RevWalk(reader)) {
+            RevCommit startCommit = walk.parseCommit(startId);
+            ObjectId startBlobId = findBlob(startCommit, path);
+            if (startBlobId == null) {
+                return null;
+            }
+            Candidate head = new Candidate(path, startBlobId, loadText(startBlobId));
+            int lineCount = head.text.size();
+            int remaining = 0;
+            for (Edit edit : editList) {
+                // the edits of the staged codes may exceed the committed content which the blame starts from
+                int end = Math.min(edit.getEndB(), lineCount);
+                if (edit.getBeginB() < end) {
+                    head.regions.add(new Region(edit.getBeginB(), edit.getBeginB(), end - edit.getBeginB()));
+                    remaining += end - edit.getBeginB();
+                }
+            }
+
+            int[] sourceIndexes = new int[lineCount];
+            Arrays.fill(sourceIndexes, BoundedBlameResult.NOT_BLAMED);
+            Map<RevCommit, Integer> commitIndexes = new LinkedHashMap<>();
+
+            walk.sort(RevSort.TOPO);
+            walk.markStart(startCommit);
+            if (baseId != null) {
+                walk.markUninteresting(walk.parseCommit(baseId));
+            }
+
+            // a commit may be reached with several paths through the renames, each of which has its own text
+            Map<RevCommit, Map<String, Candidate>> pending = new HashMap<>();
+            addPending(pending, startCommit, head);
+
+            // the topological order makes sure that all the children of a commit are walked before it
+            for (RevCommit commit = walk.next(); commit != null && remaining > 0; commit = walk.next()) {
+                Map<String, Candidate> candidates = pending.remove(commit);
+                if (candidates == null) {
+                    continue;
+                }
+                for (Candidate candidate : candidates.values()) {
+                    for (RevCommit parent : commit.getParents()) {
+                        if (candidate.regions.isEmpty()) {
+                            break;
+                        }
+                        walk.parseHeaders(parent);
+                        Candidate parentCandidate = passToParent(candidate, commit, parent);
+                        if (parentCandidate == null) {
+                            continue;
+                        }
+                        if (parent.has(RevFlag.UNINTERESTING)) {
+                            remaining -= markPreExisting(parentCandidate, sourceIndexes);
+                            continue;
+                        }
+                        addPending(pending, parent, parentCandidate);
+                    }
+                    for (Region region : candidate.regions) {
+                        int commitIndex = commitIndexes.computeIfAbsent(commit, key -> commitIndexes.size());
+                        Arrays.fill(sourceIndexes, region.resultStart, region.resultStart + region.length, commitIndex);
+                        remaining -= region.length;
+                    }
+                }
+            }
+
+            // the lines passed to the commits not walked are older than the base revision as well
+            for (Map<String, Candidate> candidates : pending.values()) {
+                for (Candidate candidate : candidates.values()) {
+                    markPreExisting(candidate, sourceIndexes);
+                }
+            }
+            return newResult(path, commitIndexes.keySet(), sourceIndexes);
+        }
+    }
+
+    /**
+     * add the candidate to the pending ones of the commit, the regions are merged into the candidate of the same path,
+     * whose positions refer to the same text
+     */
+    private void addPending(Map<RevCommit, Map<String, Candidate>> pending, RevCommit commit, Candidate candidate) {
+        Candidate existing = pending.computeIfAbsent(commit, key -> new LinkedHashMap<>())
+                .putIfAbsent(candidate.path, candidate);
+        if (existing != null) {
+            existing.regions.addAll(candidate.regions);
+        }
+    }
+
+    /**
+     * move the regions of the candidate which are unchanged in the parent to a new candidate of the parent
+     */
+    private Candidate passToParent(Candidate candidate, RevCommit commit, RevCommit parent) throws IOException {
+        String parentPath = candidate.path;
+        ObjectId parentBlobId = findBlob(parent, parentPath);
+        if (parentBlobId == null) {
+            parentPath = findRenameSource(parent, commit, candidate.path);
+            parentBlobId = parentPath != null ? findBlob(parent, parentPath) : null;
+        }
+        if (parentBlobId == null) {
+            return null;
+        }
+        if (parentBlobId.equals(candidate.blobId)) {
+            Candidate parentCandidate = new Candidate(parentPath, parentBlobId, candidate.text);
+            parentCandidate.regions.addAll(candidate.regions);
+            candidate.regions.clear();
+            return parentCandidate;
+        }
+        Candidate parentCandidate = new Candidate(parentPath, parentBlobId, loadText(parentBlobId));
+        EditList edits = diffAlgorithm.diff(comparator, parentCandidate.text, candidate.text);
+        List<Region> keptRegions = new ArrayList<>();
+        for (Region region : candidate.regions) {
+            splitRegion(region, edits, parentCandidate.regions, keptRegions);
+        }
+        candidate.regions.clear();
+        candidate.regions.addAll(keptRegions);
+        return parentCandidate.regions.isEmpty() ? null : parentCandidate;
+    }
+
+    /**
+     * split the region into the parts unchanged in the parent and the parts changed by the edits
+     */
+    private void splitRegion(Region region, EditList edits, List<Region> passedRegions, List<Region> keptRegions) {
+        int position = region.sourceStart;
+        int end = region.sourceStart + region.length;
+        int beginA = 0;
+        int beginB = 0;
+        for (int i = 0; i <= edits.size() && position < end; i++) {
+            Edit edit = i < edits.size() ? edits.get(i) : null;
+            // the lines between the previous edit and this one are unchanged, shifted by the edits before them
+            int unchangedEnd = edit != null ? edit.getBeginB() : Integer.MAX_VALUE;
+            if (position < unchangedEnd) {
+                int length = Math.min(end, unchangedEnd) - position;
+                if (length > 0) {
+                    passedRegions.add(region.slice(position, position - beginB + beginA, length));
+                    position += length;
+                }
+            }
+            if (edit == null) {
+                break;
+            }
+            if (position < edit.getEndB()) {
+                int length = Math.min(end, edit.getEndB()) - position;
+                if (length > 0) {
+                    keptRegions.add(region.slice(position, position, length));
+                    position += length;
+                }
+            }
+            beginA = edit.getEndA();
+            beginB = edit.getEndB();
+        }
+    }
+
+    private BoundedBlameResult newResult(String path, Collection<RevCommit> commits, int[] sourceIndexes) {
+        Map<PersonIdent, Integer> personIndexes = new LinkedHashMap<>();
+        ObjectId[] commitIds = new ObjectId[commits.size()];
+        int[] authorIndexes = new int[commits.size()];
+        int[] committerIndexes = new int[commits.size()];
+        int i = 0;
+        for (RevCommit commit : commits) {
+            commitIds[i] = commit.copy();
+            authorIndexes[i] = personIndexes.computeIfAbsent(commit.getAuthorIdent(), key -> personIndexes.size());
+            committerIndexes[i] = personIndexes.computeIfAbsent(commit.getCommitterIdent(), key -> personIndexes.size());
+            i++;
+        }
+        PersonIdent[] persons = personIndexes.keySet().toArray(new PersonIdent[0]);
+        return new BoundedBlameResult(path, persons, commitIds, authorIndexes, committerIndexes, sourceIndexes);
+    }
+
+    private int markPreExisting(Candidate candidate, int[] sourceIndexes) {
+        int count = 0;
+        for (Region region : candidate.regions) {
+            Arrays.fill(sourceIndexes, region.resultStart, region.resultStart + region.length,
+                    BoundedBlameResult.PRE_EXISTING);
+            count += region.length;
+        }
+        candidate.regions.clear();
+        return count;
+    }
+
+    private ObjectId findBlob(RevCommit commit, String path) throws IOException {
+        try (TreeWalk treeWalk = TreeWalk.forPath(reader, path, commit.getTree())) {
+            return treeWalk != null ? treeWalk.getObjectId(0) : null;
+        }
+    }
+
+    private String findRenameSource(RevCommit parent, RevCommit commit, String path) throws IOException {
+        String key = parent.name() + ":" + commit.name();
+        Map<String, String> renames = renameCache.get(key);
+        if (renames == null) {
+            renames = detectRenames(parent, commit);
+            renameCache.putIfAbsent(key, renames);
+        }
+        return renames.get(path);
+    }
+
+    /**
+     * detect the renames and the copies between the parent and the commit,
+     * only the added and the deleted files are given to the detector, since the modified ones are never paired
+     *
+     * @return the old paths keyed by the new paths
+     */
+    private Map<String, String> detectRenames(RevCommit parent, RevCommit commit) throws IOException {
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.setRecursive(true);
+            treeWalk.addTree(parent.getTree());
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            RenameDetector detector = new RenameDetector(reader, diffConfig);
+            for (DiffEntry entry : DiffEntry.scan(treeWalk)) {
+                if (entry.getChangeType() == ChangeType.ADD || entry.getChangeType() == ChangeType.DELETE) {
+                    detector.add(entry);
+                }
+            }
+            Map<String, String> renames = new HashMap<>();
+            for (DiffEntry entry : detector.compute(reader, NullProgressMonitor.INSTANCE)) {
+                if (entry.getChangeType() == ChangeType.RENAME || entry.getChangeType() == ChangeType.COPY) {
+                    renames.putIfAbsent(entry.getNewPath(), entry.getOldPath());
+                }
+            }
+            return renames;
+        }
+    }
+
+    private RawText loadText(ObjectId blobId) throws IOException {
+        return new RawText(reader.open(blobId, Constants.OBJ_BLOB).getBytes());
+    }
+
+    private static class Candidate {
+
+        private final String path;
+
+        private final ObjectId blobId;
+
+        private final RawText text;
+
+        /**
+         * the regions not blamed yet
+         */
+        private final List<Region> regions = new ArrayList<>();
+
+        Candidate(String path, ObjectId blobId, RawText text) {
+            this.path = path;
+            this.blobId = blobId;
+            this.text = text;
+        }
+
+    }
+
+    private static class Region {
+
+        /**
+         * the 0-based position of the region in the file of the start revision
+         */
+        private final int resultStart;
+
+        /**
+         * the 0-based position of the region in the text of the candidate
+         */
+        private final int sourceStart;
+
+        private final int length;
+
+        Region(int resultStart, int sourceStart, int length) {
+            this.resultStart = resultStart;
+            this.sourceStart = sourceStart;
+            this.length = length;
+        }
+
+        Region slice(int position, int newSourceStart, int length) {
+            return new Region(resultStart + position - sourceStart, newSourceStart, length);
+        }
+
+    }
+
+}
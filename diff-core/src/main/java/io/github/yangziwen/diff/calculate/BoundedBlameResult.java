@@ -0,0 +1,226 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+
+/**
+ * The bounded blame result
+ * the blame result of the changed lines of a file, which is traced back to the base revision only,
+ * the lines already existing in the base revision are marked as pre-existing instead of being traced further,
+ * and the lines not changed are never blamed.
+ * The result only keeps the ids and the persons of the source commits in compact tables,
+ * so that it can be persisted in the blame cache and retained without the parsed commits
+ *
+ * @author yangziwen
+ */
+public class BoundedBlameResult {
+
+    /**
+     * the source index of the lines not blamed
+     */
+    static final int NOT_BLAMED = -1;
+
+    /**
+     * the source index of the lines older than the base revision
+     */
+    static final int PRE_EXISTING = -2;
+
+    private final String resultPath;
+
+    /**
+     * the distinct persons of the source commits
+     */
+    private final PersonIdent[] persons;
+
+    /**
+     * the ids of the source commits
+     */
+    private final ObjectId[] commitIds;
+
+    /**
+     * the index of the author in the persons of each source commit
+     */
+    private final int[] authorIndexes;
+
+    /**
+     * the index of the committer in the persons of each source commit
+     */
+    private final int[] committerIndexes;
+
+    /**
+     * the index of the source commit of each line, or NOT_BLAMED or PRE_EXISTING
+     */
+    private final int[] sourceIndexes;
+
+    BoundedBlameResult(
+            String resultPath,
+            PersonIdent[] persons,
+            ObjectId[] commitIds,
+            int[] authorIndexes,
+            int[] committerIndexes,
+            int[] sourceIndexes) {
+        this.resultPath = resultPath;
+        this.persons = persons;
+        this.commitIds = commitIds;
+        this.authorIndexes = authorIndexes;
+        this.committerIndexes = committerIndexes;
+        this.sourceIndexes = sourceIndexes;
+    }
+
+    public String getResultPath() {
+        return resultPath;
+    }
+
+    public int getLineCount() {
+        return sourceIndexes.length;
+    }
+
+    /**
+     * Determines whether the line is blamed, either to a commit or as pre-existing
+     *
+     * @param line  the 0-based line number
+     * @return True if the source of the line is known
+     */
+    public boolean hasSourceData(int line) {
+        return getSourceIndex(line) != NOT_BLAMED;
+    }
+
+    /**
+     * Determines whether the line already exists in the base revision
+     *
+     * @param line  the 0-based line number
+     * @return True if the line is older than the base revision
+     */
+    public boolean isPreExisting(int line) {
+        return getSourceIndex(line) == PRE_EXISTING;
+    }
+
+    /**
+     * get the id of the commit introducing the line between the base revision and the start revision
+     *
+     * @param line  the 0-based line number
+     * @return the commit id, or null if the line is not blamed or pre-existing
+     */
+    public ObjectId getSourceCommitId(int line) {
+        int index = getSourceIndex(line);
+        return index >= 0 ? commitIds[index] : null;
+    }
+
+    public PersonIdent getSourceAuthor(int line) {
+        int index = getSourceAuthorIndex(line);
+        return index >= 0 ? persons[index] : null;
+    }
+
+    public PersonIdent getSourceCommitter(int line) {
+        int index = getSourceCommitterIndex(line);
+        return index >= 0 ? persons[index] : null;
+    }
+
+    /**
+     * get the number of the distinct persons of the source commits
+     *
+     * @return the number of the persons
+     */
+    public int getPersonCount() {
+        return persons.length;
+    }
+
+    /**
+     * get the person by the index returned by getSourceAuthorIndex or getSourceCommitterIndex
+     *
+     * @param index the index of the person
+     * @return the person
+     */
+    public PersonIdent getPerson(int index) {
+        return persons[index];
+    }
+
+    /**
+     * get the index of the author of the line in the persons,
+     * so that the persons can be checked once instead of once per line
+     *
+     * @param line  the 0-based line number
+     * @return the index of the author, or -1 if the line is not blamed or pre-existing
+     */
+    public int getSourceAuthorIndex(int line) {
+        int index = getSourceIndex(line);
+        return index >= 0 ? authorIndexes[index] : -1;
+    }
+
+    /**
+     * get the index of the committer of the line in the persons
+     *
+     * @param line  the 0-based line number
+     * @return the index of the committer, or -1 if the line is not blamed or pre-existing
+     */
+    public int getSourceCommitterIndex(int line) {
+        int index = getSourceIndex(line);
+        return index >= 0 ? committerIndexes[index] : -1;
+    }
+
+    /**
+     * Determines whether all the lines in the new side of the edits are blamed
+     *
+     * @param editList  the edits
+     * @return True if the result can be used for the edits
+     */
+    boolean covers(List<Edit> editList) {
+        for (Edit edit : editList) {
+            int end = Math.min(edit.getEndB(), sourceIndexes.length);
+            for (int line = edit.getBeginB(); line < end; line++) {
+                if (sourceIndexes[line] == NOT_BLAMED) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * get a copy of the result sharing the equal persons with the other results,
+     * the persons are interned by their external strings, which include the time zones as well
+     *
+     * @param internedPersons   the persons interned so far, keyed by the external strings
+     * @return the result with the interned persons
+     */
+    BoundedBlameResult intern(Map<String, PersonIdent> internedPersons) {
+        PersonIdent[] interned = new PersonIdent[persons.length];
+        for (int i = 0; i < persons.length; i++) {
+            PersonIdent person = persons[i];
+            interned[i] = internedPersons.computeIfAbsent(person.toExternalString(), key -> person);
+        }
+        return new BoundedBlameResult(resultPath, interned, commitIds, authorIndexes, committerIndexes, sourceIndexes);
+    }
+
+    PersonIdent[] getPersons() {
+        return persons;
+    }
+
+    ObjectId[] getCommitIds() {
+        return commitIds;
+    }
+
+    int[] getAuthorIndexes() {
+        return authorIndexes;
+    }
+
+    int[] getCommitterIndexes() {
+        return committerIndexes;
+    }
+
+    int[] getSourceIndexes() {
+        return sourceIndexes;
+    }
+
+    private int getSourceIndex(int line) {
+        if (line < 0 || line >= sourceIndexes.length) {
+            return NOT_BLAMED;
+        }
+        return sourceIndexes[line];
+    }
+
+}
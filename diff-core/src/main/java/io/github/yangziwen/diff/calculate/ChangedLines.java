@@ -0,0 +1,175 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jgit.diff.Edit;
+
+/**
+ * The changed lines
+ * an immutable index of the lines changed in the new side of a diff entry,
+ * the line numbers used by the queries are 1-based, as reported by the check tools
+ *
+ * @author yangziwen
+ */
+public class ChangedLines {
+
+    public static final ChangedLines EMPTY = new ChangedLines(new int[0], new int[0], new int[0]);
+
+    /**
+     * the first line of each changed range, the ranges are disjoint and sorted
+     */
+    private final int[] rangeStarts;
+
+    /**
+     * the last line of each changed range
+     */
+    private final int[] rangeEnds;
+
+    /**
+     * the distinct and sorted end positions of all the edits, including the deleted ones
+     */
+    private final int[] editEnds;
+
+    private ChangedLines(int[] rangeStarts, int[] rangeEnds, int[] editEnds) {
+        this.rangeStarts = rangeStarts;
+        this.rangeEnds = rangeEnds;
+        this.editEnds = editEnds;
+    }
+
+    /**
+     * build the index from the edits of a diff entry
+     *
+     * @param editList  the edits
+     * @return the changed lines
+     */
+    public static ChangedLines of(List<Edit> editList) {
+        if (editList == null || editList.isEmpty()) {
+            return EMPTY;
+        }
+        int size = editList.size();
+        long[] ranges = new long[size];
+        int[] editEnds = new int[size];
+        int rangeCount = 0;
+        for (int i = 0; i < size; i++) {
+            Edit edit = editList.get(i);
+            editEnds[i] = edit.getEndB();
+            if (edit.getEndB() > edit.getBeginB()) {
+                // the edit covers the 1-based lines (beginB, endB]
+                ranges[rangeCount++] = ((long) (edit.getBeginB() + 1) << 32) | edit.getEndB();
+            }
+        }
+        Arrays.sort(ranges, 0, rangeCount);
+        Arrays.sort(editEnds);
+
+        int[] starts = new int[rangeCount];
+        int[] ends = new int[rangeCount];
+        int merged = 0;
+        for (int i = 0; i < rangeCount; i++) {
+            int start = (int) (ranges[i] >>> 32);
+            int end = (int) ranges[i];
+            if (merged > 0 && start <= ends[merged - 1] + 1) {
+                ends[merged - 1] = Math.max(ends[merged - 1], end);
+                continue;
+            }
+            starts[merged] = start;
+            ends[merged] = end;
+            merged++;
+        }
+        return new ChangedLines(
+                Arrays.copyOf(starts, merged),
+                Arrays.copyOf(ends, merged),
+                distinct(editEnds));
+    }
+
+    /**
+     * Determines whether the line is changed
+     *
+     * @param line  the 1-based line number
+     * @return True if the line is changed
+     */
+    public boolean contains(int line) {
+        int index = floorRange(line);
+        return index >= 0 && rangeEnds[index] >= line;
+    }
+
+    /**
+     * Determines whether all the lines between fromLine and toLine are changed
+     *
+     * @param fromLine  the first 1-based line number
+     * @param toLine    the last 1-based line number
+     * @return True if the lines are covered by the changed lines
+     */
+    public boolean covers(int fromLine, int toLine) {
+        int index = floorRange(fromLine);
+        return index >= 0 && rangeEnds[index] >= toLine;
+    }
+
+    /**
+     * Determines whether any line between fromLine and toLine is changed
+     *
+     * @param fromLine  the first 1-based line number
+     * @param toLine    the last 1-based line number
+     * @return True if the lines overlap the changed lines
+     */
+    public boolean overlaps(int fromLine, int toLine) {
+        int index = floorRange(toLine);
+        return index >= 0 && rangeEnds[index] >= fromLine;
+    }
+
+    /**
+     * Determines whether the line is right after the end of an edit,
+     * the edits which only delete lines are considered too
+     *
+     * @param line  the 1-based line number
+     * @return True if the line follows an edit
+     */
+    public boolean follows(int line) {
+        return Arrays.binarySearch(editEnds, line - 1) >= 0;
+    }
+
+    public boolean isEmpty() {
+        return editEnds.length == 0;
+    }
+
+    /**
+     * get the count of the changed lines
+     *
+     * @return the count of the changed lines
+     */
+    public int getLineCount() {
+        int count = 0;
+        for (int i = 0; i < rangeStarts.length; i++) {
+            count += rangeEnds[i] - rangeStarts[i] + 1;
+        }
+        return count;
+    }
+
+    /**
+     * find the index of the last range starting at or before the line
+     */
+    private int floorRange(int line) {
+        int low = 0;
+        int high = rangeStarts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (rangeStarts[mid] <= line) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private static int[] distinct(int[] sortedValues) {
+        int count = 0;
+        for (int i = 0; i < sortedValues.length; i++) {
+            if (count == 0 || sortedValues[count - 1] != sortedValues[i]) {
+                sortedValues[count++] = sortedValues[i];
+            }
+        }
+        return Arrays.copyOf(sortedValues, count);
+    }
+
+}
@@ -0,0 +1,69 @@
+package io.github.yangziwen.diff.calculate;
+
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.SequenceComparator;
+
+/**
+ * The deadline comparator
+ * a comparator which aborts the running diff algorithm by throwing DiffTimeoutException once the deadline is passed,
+ * all the diff algorithms compare the lines through the comparator, so that the deadline is checked in their inner loops.
+ * The comparator keeps a counter and should be used by one thread only.
+ *
+ * @author yangziwen
+ */
+class DeadlineComparator extends SequenceComparator<RawText> {
+
+    /**
+     * the deadline is checked once every so many comparisons, the value must be a power of 2
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final SequenceComparator<RawText> comparator;
+
+    private final DiffDeadline deadline;
+
+    private int counter;
+
+    DeadlineComparator(SequenceComparator<RawText> comparator, DiffDeadline deadline) {
+        this.comparator = comparator;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public boolean equals(RawText a, int ai, RawText b, int bi) {
+        checkDeadline();
+        return comparator.equals(a, ai, b, bi);
+    }
+
+    @Override
+    public int hash(RawText seq, int ptr) {
+        checkDeadline();
+        return comparator.hash(seq, ptr);
+    }
+
+    @Override
+    public Edit reduceCommonStartEnd(RawText a, RawText b, Edit e) {
+        return comparator.reduceCommonStartEnd(a, b, e);
+    }
+
+    private void checkDeadline() {
+        if ((++counter & (CHECK_INTERVAL - 1)) == 0 && deadline.isExpired()) {
+            throw new DiffTimeoutException();
+        }
+    }
+
+    /**
+     * thrown when the deadline is passed, without the stack trace since it is always caught by the diff calculator
+     */
+    static class DiffTimeoutException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        DiffTimeoutException() {
+            super("the deadline of the diff is passed", null, false, false);
+        }
+
+    }
+
+}
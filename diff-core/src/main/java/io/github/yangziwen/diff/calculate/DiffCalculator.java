@@ -1,40 +1,60 @@
 package io.github.yangziwen.diff.calculate;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.diff.DiffAlgorithm;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.diff.Edit;
 import org.eclipse.jgit.diff.EditList;
 import org.eclipse.jgit.diff.RawText;
 import org.eclipse.jgit.diff.RawTextComparator;
 import org.eclipse.jgit.diff.RenameDetector;
 import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.AsyncObjectLoaderQueue;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.NullProgressMonitor;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.AbstractTreeIterator;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
-import org.eclipse.jgit.treewalk.filter.OrTreeFilter;
-import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import io.github.yangziwen.diff.calculate.DeadlineComparator.DiffTimeoutException;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -48,6 +68,8 @@ import lombok.Getter;
 @Builder
 public class DiffCalculator {
 
+    private static final Logger logger = LoggerFactory.getLogger(DiffCalculator.class);
+
     private DiffAlgorithm diffAlgorithm;
 
     @Builder.Default
@@ -56,6 +78,48 @@ public class DiffCalculator {
     @Builder.Default
     private int bigFileThreshold = DiffHelper.DEFAULT_BIG_FILE_THRESHOLD;
 
+    /**
+     * the max number of threads used to calculate the edits of the changed files,
+     * the edits are calculated sequentially when it is not greater than 1
+     */
+    @Builder.Default
+    private int parallelism = 1;
+
+    /**
+     * whether to keep the calculated edits in the edit list cache under the git directory
+     */
+    @Builder.Default
+    private boolean editListCacheEnabled = false;
+
+    @Builder.Default
+    private int editListCacheSize = EditListCache.DEFAULT_MAX_ENTRIES;
+
+    /**
+     * the predicate of the repository relative paths of the files to diff, null to diff all the files,
+     * the modified files not matched are skipped during the tree walk, and never opened or diffed,
+     * the added and deleted ones are only kept until the files moved from or to the matched paths are paired as renames
+     */
+    private Predicate<String> pathFilter;
+
+    /**
+     * the listener of the time, the bytes and the files spent on each phase, null to skip the measurement
+     */
+    private DiffPhaseListener phaseListener;
+
+    /**
+     * the max time in milliseconds to diff one file, not limited if not positive,
+     * the file taking longer is reported as replaced as a whole
+     */
+    @Builder.Default
+    private long fileTimeoutMillis = 0L;
+
+    /**
+     * the max time in milliseconds to diff all the files of one calculation, not limited if not positive,
+     * the files still being diffed or not diffed yet when it is passed are reported as replaced as a whole
+     */
+    @Builder.Default
+    private long totalTimeoutMillis = 0L;
+
     /**
      * calculate the diff between the old revision and the new revision
      *
@@ -71,162 +135,957 @@ public class DiffCalculator {
             String oldRev,
             String newRev,
             boolean includeStagedCodes) throws Exception {
+        List<DiffEntryWrapper> wrappers = new ArrayList<>();
+        calculateDiff(repoDir, oldRev, newRev, includeStagedCodes, wrappers::add);
+        return wrappers;
+    }
+
+    /**
+     * calculate the diff between the old revision and the new revision,
+     * and hand each diff entry to the consumer as soon as its edits are calculated,
+     * the entries of the staged codes come first, and the consumer is always called in the calling thread
+     *
+     * @param repoDir               the git directory
+     * @param oldRev                the old revision
+     * @param newRev                the new revision
+     * @param includeStagedCodes    include the staged codes
+     * @param consumer              the consumer of the diff entries
+     * @throws Exception            throw Exception when error happens
+     */
+    public void calculateDiff(
+            File repoDir,
+            String oldRev,
+            String newRev,
+            boolean includeStagedCodes,
+            Consumer<DiffEntryWrapper> consumer) throws Exception {
+        try (RepositorySession session = RepositorySession.open(repoDir)) {
+            calculateDiff(session, oldRev, newRev, includeStagedCodes, consumer);
+        }
+    }
+
+    /**
+     * calculate the diff between the old revision and the new revision with the opened repository session
+     *
+     * @param session               the repository session
+     * @param oldRev                the old revision
+     * @param newRev                the new revision
+     * @param includeStagedCodes    include the staged codes
+     * @return
+     * @throws Exception            throw Exception when error happens
+     */
+    public List<DiffEntryWrapper> calculateDiff(
+            RepositorySession session,
+            String oldRev,
+            String newRev,
+            boolean includeStagedCodes) throws Exception {
+        List<DiffEntryWrapper> wrappers = new ArrayList<>();
+        calculateDiff(session, oldRev, newRev, includeStagedCodes, wrappers::add);
+        return wrappers;
+    }
 
-        File normalizedRepoDir = new File(FilenameUtils.normalize(repoDir.getAbsolutePath()));
+    /**
+     * calculate the diff between the old revision and the new revision with the opened repository session,
+     * and hand each diff entry to the consumer as soon as its edits are calculated
+     *
+     * @param session               the repository session
+     * @param oldRev                the old revision
+     * @param newRev                the new revision
+     * @param includeStagedCodes    include the staged codes
+     * @param consumer              the consumer of the diff entries
+     * @throws Exception            throw Exception when error happens
+     */
+    public void calculateDiff(
+            RepositorySession session,
+            String oldRev,
+            String newRev,
+            boolean includeStagedCodes,
+            Consumer<DiffEntryWrapper> consumer) throws Exception {
 
-        try (Git git = Git.open(normalizedRepoDir);
-                ObjectReader reader = git.getRepository().newObjectReader();
-                RevWalk rw = new RevWalk(git.getRepository())) {
+        Git git = session.getGit();
+        ObjectReader reader = session.getReader();
+        File repoDir = session.getRepoDir();
 
-            RevCommit oldCommit = rw.parseCommit(git.getRepository().resolve(oldRev));
-            RevCommit newCommit = rw.parseCommit(git.getRepository().resolve(newRev));
+        long resolveStart = startPhase();
+        RevCommit oldCommit = session.parseCommit(oldRev);
+        RevCommit newCommit = session.parseCommit(newRev);
+        finishPhase(DiffPhase.RESOLVE_REVISIONS, resolveStart, 0L, 0);
 
-            List<DiffEntryWrapper> wrappers = new ArrayList<>();
+        DiffDeadline totalDeadline = newTotalDeadline();
+        try {
+            Set<String> indexedPathSet = new HashSet<>();
 
             if (includeStagedCodes) {
-                wrappers.addAll(doCalculateIndexedDiff(oldCommit, reader, git, normalizedRepoDir));
+                doCalculateIndexedDiff(oldCommit, reader, git, repoDir, totalDeadline, wrapper -> {
+                    indexedPathSet.add(wrapper.getNewPath());
+                    consumer.accept(wrapper);
+                });
             }
 
-            Set<String> indexedPathSet = wrappers.stream()
-                    .map(wrapper -> wrapper.getNewPath())
-                    .collect(Collectors.toSet());
+            doCalculateCommitDiff(oldCommit, newCommit, reader, git, repoDir, indexedPathSet, totalDeadline, consumer);
+        } finally {
+            EditListCache cache = getEditListCache(git);
+            if (cache != null) {
+                cache.flushQuietly();
+            }
+        }
+    }
 
-            wrappers.addAll(doCalculateCommitDiff(oldCommit, newCommit, reader, git, normalizedRepoDir, indexedPathSet));
+    /**
+     * calculate the diff between the old revision and the new revision on the executor
+     *
+     * @param repoDir               the git directory
+     * @param oldRev                the old revision
+     * @param newRev                the new revision
+     * @param includeStagedCodes    include the staged codes
+     * @param executor              the executor to run the calculation
+     * @return the future of the diff entries
+     */
+    public CompletableFuture<List<DiffEntryWrapper>> calculateDiffAsync(
+            File repoDir,
+            String oldRev,
+            String newRev,
+            boolean includeStagedCodes,
+            Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculateDiff(repoDir, oldRev, newRev, includeStagedCodes), executor);
+    }
 
-            return wrappers;
+    /**
+     * calculate the diff between the old revision and the new revision with the opened repository session on the executor,
+     * the session should not be used by others until the future is completed
+     *
+     * @param session               the repository session
+     * @param oldRev                the old revision
+     * @param newRev                the new revision
+     * @param includeStagedCodes    include the staged codes
+     * @param executor              the executor to run the calculation
+     * @return the future of the diff entries
+     */
+    public CompletableFuture<List<DiffEntryWrapper>> calculateDiffAsync(
+            RepositorySession session,
+            String oldRev,
+            String newRev,
+            boolean includeStagedCodes,
+            Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculateDiff(session, oldRev, newRev, includeStagedCodes), executor);
+    }
+
+    /**
+     * calculate the diff between the old revision and the new revision incrementally,
+     * based on the previous result calculated between the old revision and the previous new revision,
+     * only the paths touched between the previous new revision and the new revision are diffed again,
+     * the previous result should not include the staged codes.
+     * Since the kept entries are merged with the recalculated ones, the result is ordered by path,
+     * while calculateDiff keeps the order in which the entries are calculated
+     *
+     * @param repoDir               the git directory
+     * @param oldRev                the old revision
+     * @param prevNewRev            the previous new revision
+     * @param newRev                the new revision
+     * @param prevWrappers          the previous result
+     * @return the diff entries ordered by path, the old path is used for the deleted files
+     * @throws Exception            throw Exception when error happens
+     */
+    public List<DiffEntryWrapper> calculateIncrementalDiff(
+            File repoDir,
+            String oldRev,
+            String prevNewRev,
+            String newRev,
+            List<DiffEntryWrapper> prevWrappers) throws Exception {
+        try (RepositorySession session = RepositorySession.open(repoDir)) {
+            return calculateIncrementalDiff(session, oldRev, prevNewRev, newRev, prevWrappers);
+        }
+    }
+
+    /**
+     * calculate the diff between the old revision and the new revision incrementally with the opened repository session,
+     * the result is ordered by path as the one of {@link #calculateIncrementalDiff(File, String, String, String, List)}
+     *
+     * @param session               the repository session
+     * @param oldRev                the old revision
+     * @param prevNewRev            the previous new revision
+     * @param newRev                the new revision
+     * @param prevWrappers          the previous result
+     * @return the diff entries ordered by path, the old path is used for the deleted files
+     * @throws Exception            throw Exception when error happens
+     */
+    public List<DiffEntryWrapper> calculateIncrementalDiff(
+            RepositorySession session,
+            String oldRev,
+            String prevNewRev,
+            String newRev,
+            List<DiffEntryWrapper> prevWrappers) throws Exception {
+
+        Git git = session.getGit();
+        ObjectReader reader = session.getReader();
+
+        long resolveStart = startPhase();
+        RevCommit oldCommit = session.parseCommit(oldRev);
+        RevCommit prevNewCommit = session.parseCommit(prevNewRev);
+        RevCommit newCommit = session.parseCommit(newRev);
+        finishPhase(DiffPhase.RESOLVE_REVISIONS, resolveStart, 0L, 0);
+
+        long scanStart = startPhase();
+        Set<String> pathsToDiff = getTouchedPathSet(prevNewCommit, newCommit, reader);
+        finishPhase(DiffPhase.TREE_DIFF, scanStart, 0L, pathsToDiff.size());
+
+        // the adds, deletes, renames and copies are always diffed again, since the touched paths may pair with them as renames
+        for (DiffEntryWrapper wrapper : prevWrappers) {
+            DiffEntry entry = wrapper.getDiffEntry();
+            if (entry.getChangeType() != ChangeType.MODIFY) {
+                addRealPath(pathsToDiff, entry.getOldPath());
+                addRealPath(pathsToDiff, entry.getNewPath());
+            }
+        }
+        List<DiffEntryWrapper> wrappers = prevWrappers.stream()
+                .filter(wrapper -> !pathsToDiff.contains(wrapper.getDiffEntry().getOldPath()))
+                .filter(wrapper -> !pathsToDiff.contains(wrapper.getDiffEntry().getNewPath()))
+                .collect(Collectors.toList());
+
+        if (!pathsToDiff.isEmpty()) {
+            try {
+                doCalculateCommitDiff(oldCommit, newCommit, reader, git, session.getRepoDir(),
+                        Collections.emptySet(), PathTrieFilter.create(pathsToDiff), newTotalDeadline(), wrappers::add);
+            } finally {
+                EditListCache cache = getEditListCache(git);
+                if (cache != null) {
+                    cache.flushQuietly();
+                }
+            }
+        }
+
+        wrappers.sort(Comparator.comparing(wrapper -> wrapper.isDeleted()
+                ? wrapper.getDiffEntry().getOldPath()
+                : wrapper.getNewPath()));
+        return wrappers;
+    }
+
+    private Set<String> getTouchedPathSet(RevCommit fromCommit, RevCommit toCommit, ObjectReader reader) throws Exception {
+        Set<String> touchedPathSet = new HashSet<>();
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(fromCommit.getTree());
+            treeWalk.addTree(toCommit.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            while (treeWalk.next()) {
+                touchedPathSet.add(treeWalk.getPathString());
+            }
+        }
+        return touchedPathSet;
+    }
+
+    private void addRealPath(Set<String> pathSet, String path) {
+        if (!DiffEntry.DEV_NULL.equals(path)) {
+            pathSet.add(path);
+        }
+    }
+
+    /**
+     * calculate the diffs between each of the old revisions and the new revision in a single tree walk,
+     * each new blob is loaded only once and diffed against all the old revisions
+     *
+     * @param repoDir               the git directory
+     * @param oldRevs               the old revisions, the ones referring to the same commit share the same diff entries
+     * @param newRev                the new revision
+     * @return the diff entries of each old revision, keyed by the old revision in the given order
+     * @throws Exception            throw Exception when error happens
+     */
+    public Map<String, List<DiffEntryWrapper>> calculateMultiBaseDiff(
+            File repoDir,
+            List<String> oldRevs,
+            String newRev) throws Exception {
+        try (RepositorySession session = RepositorySession.open(repoDir)) {
+            return calculateMultiBaseDiff(session, oldRevs, newRev);
+        }
+    }
+
+    /**
+     * calculate the diffs between each of the old revisions and the new revision in a single tree walk
+     * with the opened repository session
+     *
+     * @param session               the repository session
+     * @param oldRevs               the old revisions, the ones referring to the same commit share the same diff entries
+     * @param newRev                the new revision
+     * @return the diff entries of each old revision, keyed by the old revision in the given order
+     * @throws Exception            throw Exception when error happens
+     */
+    public Map<String, List<DiffEntryWrapper>> calculateMultiBaseDiff(
+            RepositorySession session,
+            List<String> oldRevs,
+            String newRev) throws Exception {
+
+        Git git = session.getGit();
+        ObjectReader reader = session.getReader();
+
+        long resolveStart = startPhase();
+        RevCommit newCommit = session.parseCommit(newRev);
+        List<RevCommit> oldCommits = new ArrayList<>();
+        // each commit is diffed once, and the old revisions referring to it share the result
+        Map<RevCommit, Integer> baseIndexMap = new HashMap<>();
+        int[] baseIndexes = new int[oldRevs.size()];
+        for (int i = 0; i < oldRevs.size(); i++) {
+            RevCommit oldCommit = session.parseCommit(oldRevs.get(i));
+            Integer baseIndex = baseIndexMap.putIfAbsent(oldCommit, oldCommits.size());
+            if (baseIndex == null) {
+                baseIndex = oldCommits.size();
+                oldCommits.add(oldCommit);
+            }
+            baseIndexes[i] = baseIndex;
+        }
+        finishPhase(DiffPhase.RESOLVE_REVISIONS, resolveStart, 0L, 0);
+
+        long scanStart = startPhase();
+        List<List<DiffEntry>> scannedEntriesOfBases = scanMultiBaseEntries(newCommit, oldCommits, reader);
+        finishPhase(DiffPhase.TREE_DIFF, scanStart,
+                0L, scannedEntriesOfBases.stream().mapToInt(List::size).sum());
+
+        List<List<DiffEntry>> entriesOfBases = new ArrayList<>();
+        for (List<DiffEntry> entries : scannedEntriesOfBases) {
+            long renameStart = startPhase();
+            RenameDetector detector = new RenameDetector(git.getRepository());
+            detector.addAll(entries);
+            entriesOfBases.add(detector.compute(reader, NullProgressMonitor.INSTANCE).stream()
+                    .filter(this::matchesPathFilter)
+                    .collect(Collectors.toList()));
+            finishPhase(DiffPhase.RENAME_DETECTION, renameStart, 0L, entries.size());
+        }
+
+        // the entries sharing the same new blob are diffed together, so that the blob is loaded once and then released
+        List<List<DiffEntry>> entryGroups = new ArrayList<>();
+        Map<AbbreviatedObjectId, List<DiffEntry>> entriesByNewId = new LinkedHashMap<>();
+        for (List<DiffEntry> entries : entriesOfBases) {
+            for (DiffEntry entry : entries) {
+                // the deleted files all have the zero id without sharing any blob, so that each of them is diffed alone
+                if (ObjectId.zeroId().equals(entry.getNewId().toObjectId())) {
+                    entryGroups.add(Collections.singletonList(entry));
+                    continue;
+                }
+                entriesByNewId.computeIfAbsent(entry.getNewId(), key -> new ArrayList<>()).add(entry);
+            }
+        }
+        entryGroups.addAll(entriesByNewId.values());
+
+        Map<DiffEntry, List<Edit>> editListMap = new IdentityHashMap<>();
+        EditListCache cache = getEditListCache(git);
+        DiffDeadline totalDeadline = newTotalDeadline();
+        try {
+            ParallelHelper.forEachOrdered(git.getRepository(), reader, parallelism,
+                    entryGroups, (entries, entryReader) -> {
+                        RawText[] newText = new RawText[1];
+                        Supplier<RawText> newTextSupplier = () -> {
+                            if (newText[0] == null) {
+                                newText[0] = newRawText(entries.get(0), DiffEntry.Side.NEW, entryReader);
+                            }
+                            return newText[0];
+                        };
+                        Map<DiffEntry, List<Edit>> groupEditListMap = new IdentityHashMap<>();
+                        for (DiffEntry entry : entries) {
+                            groupEditListMap.put(entry, calculateEditList(
+                                    entry, newTextSupplier, entryReader, cache, totalDeadline));
+                        }
+                        return groupEditListMap;
+                    }, editListMap::putAll);
+        } finally {
+            if (cache != null) {
+                cache.flushQuietly();
+            }
+        }
+
+        List<List<DiffEntryWrapper>> wrappersOfBases = new ArrayList<>();
+        for (List<DiffEntry> entries : entriesOfBases) {
+            wrappersOfBases.add(entries.stream()
+                    .map(entry -> DiffEntryWrapper.builder()
+                            .gitDir(session.getRepoDir())
+                            .diffEntry(entry)
+                            .editList(editListMap.get(entry))
+                            .build())
+                    .collect(Collectors.toList()));
+        }
+        Map<String, List<DiffEntryWrapper>> wrappersMap = new LinkedHashMap<>();
+        for (int i = 0; i < oldRevs.size(); i++) {
+            wrappersMap.put(oldRevs.get(i), wrappersOfBases.get(baseIndexes[i]));
         }
+        return wrappersMap;
     }
 
-    private List<DiffEntryWrapper> doCalculateCommitDiff(
+    /**
+     * walk the new tree together with all the old trees, and collect the changed paths against each old tree
+     */
+    private List<List<DiffEntry>> scanMultiBaseEntries(
+            RevCommit newCommit, List<RevCommit> oldCommits, ObjectReader reader) throws Exception {
+        List<List<DiffEntry>> entriesOfBases = new ArrayList<>();
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(newCommit.getTree());
+            for (RevCommit oldCommit : oldCommits) {
+                treeWalk.addTree(oldCommit.getTree());
+                entriesOfBases.add(new ArrayList<>());
+            }
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, PathPredicateFilter.create(pathFilter, true)));
+            while (treeWalk.next()) {
+                String path = treeWalk.getPathString();
+                FileMode newMode = treeWalk.getFileMode(0);
+                for (int i = 1; i < treeWalk.getTreeCount(); i++) {
+                    FileMode oldMode = treeWalk.getFileMode(i);
+                    if (oldMode.equals(newMode) && treeWalk.idEqual(0, i)) {
+                        continue;
+                    }
+                    List<DiffEntry> entries = entriesOfBases.get(i - 1);
+                    if (oldMode == FileMode.MISSING) {
+                        entries.add(TreeDiffEntry.add(path, newMode, treeWalk.getObjectId(0)));
+                    } else if (newMode == FileMode.MISSING) {
+                        entries.add(TreeDiffEntry.delete(path, oldMode, treeWalk.getObjectId(i)));
+                    } else if ((oldMode.getBits() & FileMode.TYPE_MASK) == (newMode.getBits() & FileMode.TYPE_MASK)) {
+                        entries.add(TreeDiffEntry.modify(path,
+                                oldMode, treeWalk.getObjectId(i), newMode, treeWalk.getObjectId(0)));
+                    } else {
+                        // the type changes are split into a delete and an add, as DiffEntry.scan does
+                        entries.add(TreeDiffEntry.delete(path, oldMode, treeWalk.getObjectId(i)));
+                        entries.add(TreeDiffEntry.add(path, newMode, treeWalk.getObjectId(0)));
+                    }
+                }
+            }
+        }
+        return entriesOfBases;
+    }
+
+    /**
+     * calculate the diff between the old revision and the tracked files in the working tree,
+     * the files whose stat data matches the index are not read or hashed
+     *
+     * @param repoDir               the git directory
+     * @param oldRev                the old revision
+     * @return the diff entries in the order of the tree walk
+     * @throws Exception            throw Exception when error happens
+     */
+    public List<DiffEntryWrapper> calculateWorkingTreeDiff(File repoDir, String oldRev) throws Exception {
+        try (RepositorySession session = RepositorySession.open(repoDir)) {
+            return calculateWorkingTreeDiff(session, oldRev);
+        }
+    }
+
+    /**
+     * calculate the diff between the old revision and the tracked files in the working tree with the opened repository session
+     *
+     * @param session               the repository session
+     * @param oldRev                the old revision
+     * @return the diff entries in the order of the tree walk
+     * @throws Exception            throw Exception when error happens
+     */
+    public List<DiffEntryWrapper> calculateWorkingTreeDiff(RepositorySession session, String oldRev) throws Exception {
+        List<DiffEntryWrapper> wrappers = new ArrayList<>();
+        calculateWorkingTreeDiff(session, oldRev, wrappers::add);
+        return wrappers;
+    }
+
+    /**
+     * calculate the diff between the old revision and the tracked files in the working tree with the opened repository session,
+     * and hand each diff entry to the consumer as soon as its edits are calculated,
+     * the untracked files, the conflicting files and the files missing in the working tree are skipped
+     *
+     * @param session               the repository session
+     * @param oldRev                the old revision
+     * @param consumer              the consumer of the diff entries
+     * @throws Exception            throw Exception when error happens
+     */
+    public void calculateWorkingTreeDiff(
+            RepositorySession session,
+            String oldRev,
+            Consumer<DiffEntryWrapper> consumer) throws Exception {
+        long resolveStart = startPhase();
+        RevCommit oldCommit = session.parseCommit(oldRev);
+        finishPhase(DiffPhase.RESOLVE_REVISIONS, resolveStart, 0L, 0);
+        try {
+            doCalculateWorkingTreeDiff(oldCommit, session.getReader(), session.getGit(), session.getRepoDir(),
+                    newTotalDeadline(), consumer);
+        } finally {
+            EditListCache cache = getEditListCache(session.getGit());
+            if (cache != null) {
+                cache.flushQuietly();
+            }
+        }
+    }
+
+    private void doCalculateCommitDiff(
             RevCommit oldCommit,
             RevCommit newCommit,
             ObjectReader reader,
             Git git,
             File repoDir,
-            Set<String> excludedPathSet) throws Exception {
+            Set<String> excludedPathSet,
+            DiffDeadline totalDeadline,
+            Consumer<DiffEntryWrapper> consumer) throws Exception {
+        doCalculateCommitDiff(oldCommit, newCommit, reader, git, repoDir,
+                excludedPathSet, TreeFilter.ALL, totalDeadline, consumer);
+    }
+
+    private void doCalculateCommitDiff(
+            RevCommit oldCommit,
+            RevCommit newCommit,
+            ObjectReader reader,
+            Git git,
+            File repoDir,
+            Set<String> excludedPathSet,
+            TreeFilter scopeFilter,
+            DiffDeadline totalDeadline,
+            Consumer<DiffEntryWrapper> consumer) throws Exception {
 
         if (Objects.equals(oldCommit.getId(), newCommit.getId())) {
-            return Collections.emptyList();
+            return;
         }
 
         if (Objects.equals(oldCommit.getTree().getId(), newCommit.getTree().getId())) {
-            return Collections.emptyList();
+            return;
         }
 
         RenameDetector detector = new RenameDetector(git.getRepository());
         AbstractTreeIterator oldTree = new CanonicalTreeParser(null, reader, oldCommit.getTree());
         AbstractTreeIterator newTree = new CanonicalTreeParser(null, reader, newCommit.getTree());
 
+        long scanStart = startPhase();
         List<DiffEntry> entries = git.diff()
                 .setOldTree(oldTree)
                 .setNewTree(newTree)
+                .setPathFilter(AndTreeFilter.create(scopeFilter, PathPredicateFilter.create(pathFilter, true)))
                 .call();
+        finishPhase(DiffPhase.TREE_DIFF, scanStart, 0L, entries.size());
+
+        long renameStart = startPhase();
         detector.reset();
         detector.addAll(entries);
         entries = detector.compute();
+        finishPhase(DiffPhase.RENAME_DETECTION, renameStart, 0L, entries.size());
 
-        return entries.stream()
+        List<DiffEntry> entriesToDiff = entries.stream()
+                .filter(this::matchesPathFilter)
                 .filter(entry -> !excludedPathSet.contains(entry.getNewPath()))
-                .map(entry -> {
-                    RawText oldText = newRawText(entry, DiffEntry.Side.OLD, reader);
-                    RawText newText = newRawText(entry, DiffEntry.Side.NEW, reader);
-                    return DiffEntryWrapper.builder()
-                            .gitDir(repoDir)
-                            .diffEntry(entry)
-                            .editList(calculateEditList(oldText, newText))
-                            .build();
-                }).collect(Collectors.toList());
+                .collect(Collectors.toList());
+
+        EditListCache cache = getEditListCache(git);
+
+        ParallelHelper.forEachOrdered(git.getRepository(), reader, parallelism, entriesToDiff, (entry, entryReader) -> {
+            return DiffEntryWrapper.builder()
+                    .gitDir(repoDir)
+                    .diffEntry(entry)
+                    .editList(calculateEditList(entry, entryReader, cache, totalDeadline))
+                    .build();
+        }, consumer);
     }
 
-    private List<DiffEntryWrapper> doCalculateIndexedDiff(
+    private void doCalculateIndexedDiff(
             RevCommit oldCommit,
             ObjectReader reader,
             Git git,
-            File repoDir) throws Exception {
-        Set<String> indexedPathSet = new HashSet<>();
-        Status status = git.status().call();
-        indexedPathSet.addAll(status.getAdded());
-        indexedPathSet.addAll(status.getChanged());
-        Map<String, BlobWrapper> indexedFileContentMap = getIndexedFileContentMap(git, indexedPathSet);
-        Map<String, BlobWrapper> oldRevFileContentMap = getRevFileContentMap(git, oldCommit, indexedPathSet, reader);
-        return indexedPathSet.stream()
-                .map(filePath -> {
-                    BlobWrapper oldBlob = oldRevFileContentMap.get(filePath);
-                    RawText oldText = oldBlob != null ? new RawText(oldBlob.getContent()) : RawText.EMPTY_TEXT;
-                    RawText newText = new RawText(indexedFileContentMap.get(filePath).getContent());
-                    DiffEntry entry = oldBlob == null
-                            ? DiffHelper.createAddDiffEntry(filePath, oldCommit)
-                            : DiffHelper.createModifyDiffEntry(filePath);
-                    return DiffEntryWrapper.builder()
-                            .gitDir(repoDir)
-                            .diffEntry(entry)
-                            .editList(calculateEditList(oldText, newText))
-                            .build();
-                })
-                .collect(Collectors.toList());
+            File repoDir,
+            DiffDeadline totalDeadline,
+            Consumer<DiffEntryWrapper> consumer) throws Exception {
+        long scanStart = startPhase();
+        Set<String> indexedPathSet = getIndexedPathSet(git, reader);
+        Map<String, ObjectId> indexedBlobIdMap = getIndexedBlobIdMap(git, indexedPathSet, reader);
+        Map<String, ObjectId> oldRevBlobIdMap = getRevBlobIdMap(git, oldCommit, indexedPathSet, reader);
+        finishPhase(DiffPhase.INDEX_SCAN, scanStart, 0L, indexedPathSet.size());
+        EditListCache cache = getEditListCache(git);
+        List<IndexedBlobId> blobIdsToLoad = new ArrayList<>();
+        for (String filePath : indexedPathSet) {
+            IndexedBlobId blobId = new IndexedBlobId(
+                    filePath, indexedBlobIdMap.get(filePath), oldRevBlobIdMap.get(filePath));
+            List<Edit> editList = getCachedEditList(blobId.getOldId(), blobId, cache);
+            if (editList != null) {
+                consumer.accept(newIndexedDiffEntryWrapper(blobId, oldCommit, repoDir, editList));
+            } else {
+                blobIdsToLoad.add(blobId);
+            }
+        }
+        if (blobIdsToLoad.isEmpty()) {
+            return;
+        }
+        // the old blobs are mostly packed while the staged ones are mostly loose objects just added,
+        // so that the pairs are sorted by the positions of the old blobs in the packs,
+        // and both blobs of a pair are requested together, then diffed and released before the next pair
+        List<SideBlobId> sideBlobIds = new ArrayList<>();
+        for (IndexedBlobId blobId : PackOrderHelper.sortByPackOffset(
+                git.getRepository(), blobIdsToLoad, IndexedBlobId::getOldId)) {
+            if (blobId.getOldId() != null) {
+                sideBlobIds.add(new SideBlobId(blobId, DiffEntry.Side.OLD));
+            }
+            sideBlobIds.add(new SideBlobId(blobId, DiffEntry.Side.NEW));
+        }
+        // the queue may return the blobs out of the requested order, the first loaded blob of a pair waits for the other
+        Map<IndexedBlobId, RawText> pendingTextMap = new IdentityHashMap<>();
+        AsyncObjectLoaderQueue<SideBlobId> queue = reader.open(sideBlobIds, true);
+        try {
+            while (queue.next()) {
+                SideBlobId sideBlobId = queue.getCurrent();
+                IndexedBlobId blobId = sideBlobId.getBlobId();
+                long loadStart = startPhase();
+                RawText text = new RawText(queue.open().getBytes());
+                RawText otherText = blobId.getOldId() != null ? pendingTextMap.remove(blobId) : RawText.EMPTY_TEXT;
+                if (otherText == null) {
+                    pendingTextMap.put(blobId, text);
+                    finishPhase(DiffPhase.BLOB_LOADING, loadStart, text.getRawContent().length, 0);
+                    continue;
+                }
+                boolean newSide = sideBlobId.getSide() == DiffEntry.Side.NEW;
+                RawText oldText = newSide ? otherText : text;
+                RawText newText = newSide ? text : otherText;
+                finishPhase(DiffPhase.BLOB_LOADING, loadStart, text.getRawContent().length, 1);
+                List<Edit> editList = calculateEditList(blobId.getPath(), oldText, newText, totalDeadline);
+                putCachedEditList(blobId.getOldId(), blobId, editList, cache);
+                consumer.accept(newIndexedDiffEntryWrapper(blobId, oldCommit, repoDir, editList));
+            }
+        } finally {
+            queue.release();
+        }
+    }
+
+    private DiffEntryWrapper newIndexedDiffEntryWrapper(
+            IndexedBlobId blobId, RevCommit oldCommit, File repoDir, List<Edit> editList) {
+        DiffEntry entry = blobId.getOldId() == null
+                ? DiffHelper.createAddDiffEntry(blobId.getPath(), oldCommit)
+                : DiffHelper.createModifyDiffEntry(blobId.getPath());
+        return DiffEntryWrapper.builder()
+                .gitDir(repoDir)
+                .diffEntry(entry)
+                .editList(editList)
+                .build();
+    }
+
+    private void doCalculateWorkingTreeDiff(
+            RevCommit oldCommit,
+            ObjectReader reader,
+            Git git,
+            File repoDir,
+            DiffDeadline totalDeadline,
+            Consumer<DiffEntryWrapper> consumer) throws Exception {
+        Repository repository = git.getRepository();
+        EditListCache cache = getEditListCache(git);
+        try (TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+            treeWalk.addTree(oldCommit.getTree());
+            int indexTree = treeWalk.addTree(new DirCacheIterator(repository.readDirCache()));
+            FileTreeIterator workingTreeIterator = new FileTreeIterator(repository);
+            // the id of a file whose stat data is clean in the index is taken from the index instead of hashing its content
+            workingTreeIterator.setDirCacheIterator(treeWalk, indexTree);
+            int workingTree = treeWalk.addTree(workingTreeIterator);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(new TreeFilter[] {
+                    new IndexedPathFilter(indexTree),
+                    TreeFilter.ANY_DIFF,
+                    PathPredicateFilter.create(pathFilter)
+            }));
+            while (nextScannedEntry(treeWalk)) {
+                DirCacheIterator indexIterator = treeWalk.getTree(indexTree, DirCacheIterator.class);
+                FileTreeIterator fileIterator = treeWalk.getTree(workingTree, FileTreeIterator.class);
+                if (fileIterator == null || indexIterator == null) {
+                    continue;
+                }
+                DirCacheEntry indexEntry = indexIterator.getDirCacheEntry();
+                if (indexEntry == null
+                        || indexEntry.getStage() != DirCacheEntry.STAGE_0
+                        || indexEntry.getFileMode() == FileMode.GITLINK) {
+                    continue;
+                }
+                if (treeWalk.getRawMode(0) != 0 && treeWalk.idEqual(0, workingTree)) {
+                    continue;
+                }
+                String filePath = treeWalk.getPathString();
+                ObjectId oldId = treeWalk.getRawMode(0) != 0 ? treeWalk.getObjectId(0) : null;
+                ObjectId newId = treeWalk.getObjectId(workingTree);
+                List<Edit> editList = getCachedEditList(oldId, newId, cache);
+                if (editList == null) {
+                    long loadStart = startPhase();
+                    RawText oldText = oldId != null
+                            ? new RawText(reader.open(oldId, Constants.OBJ_BLOB).getBytes())
+                            : RawText.EMPTY_TEXT;
+                    RawText newText = new RawText(readWorkingTreeContent(fileIterator));
+                    finishPhase(DiffPhase.BLOB_LOADING, loadStart, getByteCount(oldText, newText), 1);
+                    editList = calculateEditList(filePath, oldText, newText, totalDeadline);
+                    putCachedEditList(oldId, newId, editList, cache);
+                }
+                DiffEntry entry = oldId == null
+                        ? DiffHelper.createAddDiffEntry(filePath, newId)
+                        : DiffHelper.createModifyDiffEntry(filePath);
+                consumer.accept(DiffEntryWrapper.builder()
+                        .gitDir(repoDir)
+                        .diffEntry(entry)
+                        .editList(editList)
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * move the working tree walk to the next entry, and count the time spent in walking as the index scan
+     */
+    private boolean nextScannedEntry(TreeWalk treeWalk) throws IOException {
+        long scanStart = startPhase();
+        boolean hasNext = treeWalk.next();
+        finishPhase(DiffPhase.INDEX_SCAN, scanStart, 0L, hasNext ? 1 : 0);
+        return hasNext;
+    }
+
+    private byte[] readWorkingTreeContent(FileTreeIterator iterator) throws IOException {
+        // the stream applies the clean filters and the line ending conversion, as the content would be staged
+        try (InputStream in = iterator.openEntryStream()) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    /**
+     * find the paths staged in the index but not committed to HEAD yet,
+     * the index is compared against the HEAD tree directly without scanning the working tree
+     */
+    private Set<String> getIndexedPathSet(Git git, ObjectReader reader) throws Exception {
+        Repository repository = git.getRepository();
+        Set<String> indexedPathSet = new LinkedHashSet<>();
+        ObjectId headTreeId = repository.resolve(Constants.HEAD + "^{tree}");
+        try (TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+            if (headTreeId != null) {
+                treeWalk.addTree(headTreeId);
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+            treeWalk.addTree(new DirCacheIterator(repository.readDirCache()));
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, PathPredicateFilter.create(pathFilter)));
+            while (treeWalk.next()) {
+                DirCacheIterator indexIterator = treeWalk.getTree(1, DirCacheIterator.class);
+                // the paths only removed from the index are not staged contents to check
+                if (indexIterator == null) {
+                    continue;
+                }
+                DirCacheEntry indexEntry = indexIterator.getDirCacheEntry();
+                if (indexEntry == null
+                        || indexEntry.getStage() != DirCacheEntry.STAGE_0
+                        || indexEntry.getFileMode() == FileMode.GITLINK) {
+                    continue;
+                }
+                indexedPathSet.add(treeWalk.getPathString());
+            }
+        }
+        return indexedPathSet;
     }
 
-    private Map<String, BlobWrapper> getRevFileContentMap(
+    private Map<String, ObjectId> getRevBlobIdMap(
             Git git, RevCommit commit, Set<String> filePathSet, ObjectReader reader) throws Exception {
         if (filePathSet == null || filePathSet.isEmpty()) {
             return Collections.emptyMap();
         }
-        TreeFilter filter = filePathSet.size() > 1
-                ? OrTreeFilter.create(filePathSet.stream()
-                        .map(PathFilter::create)
-                        .collect(Collectors.toList()))
-                : PathFilter.create(filePathSet.iterator().next());
-         return getContentMapByTreeAndFilter(git, new CanonicalTreeParser(null, reader, commit.getTree()), filter);
+        TreeFilter filter = PathTrieFilter.create(filePathSet);
+        return getBlobIdMapByTreeAndFilter(reader, new CanonicalTreeParser(null, reader, commit.getTree()), filter);
     }
 
-    private Map<String, BlobWrapper> getIndexedFileContentMap(Git git, Set<String> filePathSet) throws Exception {
+    private Map<String, ObjectId> getIndexedBlobIdMap(
+            Git git, Set<String> filePathSet, ObjectReader reader) throws Exception {
         if (filePathSet == null || filePathSet.isEmpty()) {
             return Collections.emptyMap();
         }
         DirCache index = git.getRepository().readDirCache();
-        TreeFilter filter = filePathSet.size() > 1
-                ? OrTreeFilter.create(filePathSet.stream()
-                        .map(PathFilter::create)
-                        .collect(Collectors.toList()))
-                : PathFilter.create(filePathSet.iterator().next());
-        return getContentMapByTreeAndFilter(git, new DirCacheIterator(index), filter);
-    }
-
-    private Map<String, BlobWrapper> getContentMapByTreeAndFilter(
-            Git git, AbstractTreeIterator tree, TreeFilter filter) throws Exception {
-        Map<String, BlobWrapper> contentMap = new LinkedHashMap<>();
-        try (TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+        TreeFilter filter = PathTrieFilter.create(filePathSet);
+        return getBlobIdMapByTreeAndFilter(reader, new DirCacheIterator(index), filter);
+    }
+
+    /**
+     * collect the blob ids of the files matching the filter, the contents are not loaded here
+     */
+    private Map<String, ObjectId> getBlobIdMapByTreeAndFilter(
+            ObjectReader reader, AbstractTreeIterator tree, TreeFilter filter) throws Exception {
+        Map<String, ObjectId> blobIdMap = new LinkedHashMap<>();
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
             treeWalk.addTree(tree);
             treeWalk.setRecursive(true);
             treeWalk.setFilter(filter);
             while (treeWalk.next()) {
-                ObjectId objectId = treeWalk.getObjectId(0);
-                ObjectLoader loader = git.getRepository().open(objectId);
-                BlobWrapper blobWrapper = BlobWrapper.builder()
-                        .blobId(objectId)
-                        .content(loader.getBytes())
-                        .build();
-                contentMap.put(treeWalk.getPathString(), blobWrapper);
+                blobIdMap.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
             }
         }
-        return contentMap;
+        return blobIdMap;
     }
 
     private RawText newRawText(DiffEntry entry, DiffEntry.Side side, ObjectReader reader) {
         try {
-            return new RawText(DiffHelper.open(entry, side, reader, bigFileThreshold));
+            long loadStart = startPhase();
+            byte[] content = DiffHelper.open(entry, side, reader, bigFileThreshold);
+            // the file is counted once, when its new side is loaded
+            finishPhase(DiffPhase.BLOB_LOADING, loadStart, content.length, side == DiffEntry.Side.NEW ? 1 : 0);
+            return new RawText(content);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    private List<Edit> calculateEditList(RawText oldText, RawText newText) {
-        EditList edits = diffAlgorithm.diff(comparator, oldText, newText);
-        List<Edit> editList = new ArrayList<Edit>();
-        for (Edit edit : edits) {
-            editList.add(edit);
+    /**
+     * the added and deleted files of the other paths are kept for the rename detection, and dropped after it,
+     * the deleted files are tested by their old paths
+     */
+    private boolean matchesPathFilter(DiffEntry entry) {
+        if (pathFilter == null) {
+            return true;
+        }
+        return pathFilter.test(entry.getChangeType() == ChangeType.DELETE ? entry.getOldPath() : entry.getNewPath());
+    }
+
+    private EditListCache getEditListCache(Git git) {
+        return editListCacheEnabled ? EditListCache.open(git.getRepository(), editListCacheSize) : null;
+    }
+
+    private List<Edit> calculateEditList(
+            DiffEntry entry, ObjectReader reader, EditListCache cache, DiffDeadline totalDeadline) {
+        return calculateEditList(entry, () -> newRawText(entry, DiffEntry.Side.NEW, reader), reader, cache, totalDeadline);
+    }
+
+    private List<Edit> calculateEditList(
+            DiffEntry entry,
+            Supplier<RawText> newTextSupplier,
+            ObjectReader reader,
+            EditListCache cache,
+            DiffDeadline totalDeadline) {
+        // the abbreviated ids are resolved when opening the blobs, so that only the complete ones can be used as key
+        boolean cacheable = cache != null && entry.getOldId().isComplete() && entry.getNewId().isComplete();
+        if (cacheable) {
+            List<Edit> editList = cache.get(entry.getOldId().toObjectId(), entry.getNewId().toObjectId(),
+                    diffAlgorithm, comparator, bigFileThreshold);
+            if (editList != null) {
+                return editList;
+            }
+        }
+        RawText oldText = newRawText(entry, DiffEntry.Side.OLD, reader);
+        RawText newText = newTextSupplier.get();
+        List<Edit> editList = calculateEditList(entry.getNewPath(), oldText, newText, totalDeadline);
+        if (cacheable && !(editList instanceof WholeFileEditList)) {
+            cache.put(entry.getOldId().toObjectId(), entry.getNewId().toObjectId(),
+                    diffAlgorithm, comparator, bigFileThreshold, editList);
         }
         return editList;
     }
 
+    /**
+     * get the cached edits between two blobs, the missing old blob is keyed by the zero id
+     */
+    private List<Edit> getCachedEditList(ObjectId oldId, ObjectId newId, EditListCache cache) {
+        if (cache == null) {
+            return null;
+        }
+        return cache.get(oldId != null ? oldId : ObjectId.zeroId(), newId,
+                diffAlgorithm, comparator, bigFileThreshold);
+    }
+
+    private void putCachedEditList(ObjectId oldId, ObjectId newId, List<Edit> editList, EditListCache cache) {
+        // the edits given up by the deadline may be calculated in time later, so that they are never cached
+        if (cache != null && !(editList instanceof WholeFileEditList)) {
+            cache.put(oldId != null ? oldId : ObjectId.zeroId(), newId,
+                    diffAlgorithm, comparator, bigFileThreshold, editList);
+        }
+    }
+
+    private List<Edit> calculateEditList(String path, RawText oldText, RawText newText, DiffDeadline totalDeadline) {
+        long diffStart = startPhase();
+        try {
+            DiffDeadline deadline = DiffDeadline.afterMillis(fileTimeoutMillis).min(totalDeadline);
+            if (deadline.isExpired()) {
+                logger.warn("the total diff timeout of {} ms is passed, {} is treated as replaced", totalTimeoutMillis, path);
+                return new WholeFileEditList(oldText, newText);
+            }
+            EditList edits = deadline.isBounded()
+                    ? diffAlgorithm.diff(new DeadlineComparator(comparator, deadline), oldText, newText)
+                    : diffAlgorithm.diff(comparator, oldText, newText);
+            List<Edit> editList = new ArrayList<Edit>();
+            for (Edit edit : edits) {
+                editList.add(edit);
+            }
+            return editList;
+        } catch (DiffTimeoutException e) {
+            logger.warn("failed to diff {} in time, it is treated as replaced", path);
+            return new WholeFileEditList(oldText, newText);
+        } finally {
+            finishPhase(DiffPhase.EDIT_CALCULATION, diffStart, getByteCount(oldText, newText), 1);
+        }
+    }
+
+    private DiffDeadline newTotalDeadline() {
+        return DiffDeadline.afterMillis(totalTimeoutMillis);
+    }
+
+    private long getByteCount(RawText oldText, RawText newText) {
+        return (long) oldText.getRawContent().length + newText.getRawContent().length;
+    }
+
+    private long startPhase() {
+        return phaseListener != null ? System.nanoTime() : 0L;
+    }
+
+    private void finishPhase(DiffPhase phase, long startNanos, long byteCount, int fileCount) {
+        if (phaseListener != null) {
+            phaseListener.phaseFinished(phase, System.nanoTime() - startNanos, byteCount, fileCount);
+        }
+    }
+
+    /**
+     * the edits of a file which is given up by the deadline, the whole old side is replaced by the whole new side
+     */
+    private static class WholeFileEditList extends ArrayList<Edit> {
+
+        private static final long serialVersionUID = 1L;
+
+        WholeFileEditList(RawText oldText, RawText newText) {
+            super(1);
+            if (oldText.size() > 0 || newText.size() > 0) {
+                add(new Edit(0, oldText.size(), 0, newText.size()));
+            }
+        }
+
+    }
+
+    /**
+     * the id of a staged blob, carrying the path and the id of the old blob along the async loading
+     */
+    private static class IndexedBlobId extends ObjectId {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+
+        private final ObjectId oldId;
+
+        IndexedBlobId(String path, ObjectId newId, ObjectId oldId) {
+            super(newId);
+            this.path = path;
+            this.oldId = oldId;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        ObjectId getOldId() {
+            return oldId;
+        }
+
+    }
+
+    /**
+     * the id of the old or the staged blob of a pair requested from the async loading
+     */
+    private static class SideBlobId extends ObjectId {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IndexedBlobId blobId;
+
+        private final DiffEntry.Side side;
+
+        SideBlobId(IndexedBlobId blobId, DiffEntry.Side side) {
+            super(side == DiffEntry.Side.NEW ? blobId : blobId.getOldId());
+            this.blobId = blobId;
+            this.side = side;
+        }
+
+        IndexedBlobId getBlobId() {
+            return blobId;
+        }
+
+        DiffEntry.Side getSide() {
+            return side;
+        }
+
+    }
+
 }
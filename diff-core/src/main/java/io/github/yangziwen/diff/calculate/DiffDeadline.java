@@ -0,0 +1,58 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The diff deadline
+ * the point of time after which the diff calculation should be given up
+ *
+ * @author yangziwen
+ */
+final class DiffDeadline {
+
+    static final DiffDeadline NONE = new DiffDeadline(0L, false);
+
+    private final long nanos;
+
+    private final boolean bounded;
+
+    private DiffDeadline(long nanos, boolean bounded) {
+        this.nanos = nanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * create the deadline after the timeout from now
+     *
+     * @param timeoutMillis     the timeout in milliseconds, no deadline if not positive
+     * @return the deadline
+     */
+    static DiffDeadline afterMillis(long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            return NONE;
+        }
+        return new DiffDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), true);
+    }
+
+    /**
+     * the earlier one of the two deadlines
+     */
+    DiffDeadline min(DiffDeadline other) {
+        if (!other.bounded) {
+            return this;
+        }
+        if (!bounded) {
+            return other;
+        }
+        return nanos - other.nanos <= 0 ? this : other;
+    }
+
+    boolean isBounded() {
+        return bounded;
+    }
+
+    boolean isExpired() {
+        return bounded && System.nanoTime() - nanos >= 0;
+    }
+
+}
@@ -0,0 +1,42 @@
+package io.github.yangziwen.diff.calculate;
+
+/**
+ * The diff phase
+ * the phases which the time of a diff calculation is spent on
+ *
+ * @author yangziwen
+ */
+public enum DiffPhase {
+
+    RESOLVE_REVISIONS("resolve revisions"),
+
+    /**
+     * scan the index, and the working tree if needed, for the staged or changed files
+     */
+    INDEX_SCAN("index scan"),
+
+    TREE_DIFF("tree diff"),
+
+    RENAME_DETECTION("rename detection"),
+
+    /**
+     * load the contents of the old and new sides of the changed files
+     */
+    BLOB_LOADING("blob loading"),
+
+    /**
+     * run the diff algorithm on the loaded contents
+     */
+    EDIT_CALCULATION("edit calculation");
+
+    private final String label;
+
+    DiffPhase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+}
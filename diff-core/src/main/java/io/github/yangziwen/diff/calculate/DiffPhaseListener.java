@@ -0,0 +1,24 @@
+package io.github.yangziwen.diff.calculate;
+
+/**
+ * The diff phase listener
+ * receive the time, the bytes and the files spent on each phase of the diff calculation,
+ * a phase may be reported many times in one calculation, e.g. once for each file,
+ * and concurrently from the worker threads when the edits are calculated in parallel
+ *
+ * @author yangziwen
+ */
+@FunctionalInterface
+public interface DiffPhaseListener {
+
+    /**
+     * called when a piece of work of the phase is finished
+     *
+     * @param phase             the phase
+     * @param elapsedNanos      the time spent in nanoseconds
+     * @param byteCount         the number of bytes read, 0 if not applicable
+     * @param fileCount         the number of files processed
+     */
+    void phaseFinished(DiffPhase phase, long elapsedNanos, long byteCount, int fileCount);
+
+}
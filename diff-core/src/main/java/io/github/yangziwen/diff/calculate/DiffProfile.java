@@ -0,0 +1,78 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The diff profile
+ * a diff phase listener which sums up the time, the bytes and the files of each phase
+ *
+ * @author yangziwen
+ */
+public class DiffProfile implements DiffPhaseListener {
+
+    private final Map<DiffPhase, LongAdder[]> countersMap = new EnumMap<>(DiffPhase.class);
+
+    public DiffProfile() {
+        for (DiffPhase phase : DiffPhase.values()) {
+            countersMap.put(phase, new LongAdder[] { new LongAdder(), new LongAdder(), new LongAdder() });
+        }
+    }
+
+    @Override
+    public void phaseFinished(DiffPhase phase, long elapsedNanos, long byteCount, int fileCount) {
+        LongAdder[] counters = countersMap.get(phase);
+        counters[0].add(elapsedNanos);
+        counters[1].add(byteCount);
+        counters[2].add(fileCount);
+    }
+
+    /**
+     * the time spent on the phase, summed over the worker threads when running in parallel
+     *
+     * @param phase     the phase
+     * @return the time in nanoseconds
+     */
+    public long getElapsedNanos(DiffPhase phase) {
+        return countersMap.get(phase)[0].sum();
+    }
+
+    public long getByteCount(DiffPhase phase) {
+        return countersMap.get(phase)[1].sum();
+    }
+
+    public long getFileCount(DiffPhase phase) {
+        return countersMap.get(phase)[2].sum();
+    }
+
+    /**
+     * format the summary table of the phases
+     *
+     * @return the summary
+     */
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ROOT, "%-20s%12s%14s%10s%n", "Diff phase", "Time (ms)", "Bytes", "Files"));
+        long totalNanos = 0L;
+        for (DiffPhase phase : DiffPhase.values()) {
+            long elapsedNanos = getElapsedNanos(phase);
+            totalNanos += elapsedNanos;
+            builder.append(String.format(Locale.ROOT, "%-20s%12d%14d%10d%n",
+                    phase.getLabel(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    getByteCount(phase),
+                    getFileCount(phase)));
+        }
+        builder.append(String.format(Locale.ROOT, "%-20s%12d%n", "total", TimeUnit.NANOSECONDS.toMillis(totalNanos)));
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+
+}
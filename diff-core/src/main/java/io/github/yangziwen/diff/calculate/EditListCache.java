@@ -0,0 +1,165 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * The edit list cache
+ * cache the edits calculated between two blobs, so that the same pair of blobs is only diffed once
+ *
+ * @author yangziwen
+ */
+public class EditListCache extends PersistentLruCache<int[]> {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private static final String FILE_NAME = "edit-list.cache";
+
+    private static final String FORMAT = "edit-list-cache-v1";
+
+    private static final ConcurrentMap<File, EditListCache> CACHES = new ConcurrentHashMap<>();
+
+    EditListCache(File file, int maxEntries) {
+        super(file, maxEntries);
+    }
+
+    /**
+     * get the edit list cache of the repository,
+     * the cache is shared by all the calculations against the same repository in the jvm,
+     * and keeps the largest bound requested by them
+     *
+     * @param repository    the repository
+     * @param maxEntries    the max number of cached edit lists
+     * @return the edit list cache
+     */
+    public static EditListCache open(Repository repository, int maxEntries) {
+        File file = new File(new File(repository.getDirectory(), CACHE_DIR_NAME), FILE_NAME).getAbsoluteFile();
+        EditListCache cache = CACHES.computeIfAbsent(file, key -> new EditListCache(key, maxEntries));
+        if (cache.getMaxEntries() < maxEntries) {
+            cache.setMaxEntries(maxEntries);
+        }
+        return cache;
+    }
+
+    /**
+     * get the cached edits between the two blobs
+     *
+     * @param oldId         the id of the old blob
+     * @param newId         the id of the new blob
+     * @param algorithm     the diff algorithm
+     * @param comparator    the comparator
+     * @param bigFileThreshold  the size above which the blobs are treated as binary
+     * @return the cached edits, or null if not cached
+     */
+    public List<Edit> get(
+            AnyObjectId oldId,
+            AnyObjectId newId,
+            DiffAlgorithm algorithm,
+            RawTextComparator comparator,
+            int bigFileThreshold) {
+        int[] value = get(toKey(oldId, newId, algorithm, comparator, bigFileThreshold));
+        if (value == null) {
+            return null;
+        }
+        List<Edit> editList = new ArrayList<>(value.length / 4);
+        for (int i = 0; i < value.length; i += 4) {
+            editList.add(new Edit(value[i], value[i + 1], value[i + 2], value[i + 3]));
+        }
+        return editList;
+    }
+
+    public void put(
+            AnyObjectId oldId,
+            AnyObjectId newId,
+            DiffAlgorithm algorithm,
+            RawTextComparator comparator,
+            int bigFileThreshold,
+            List<Edit> editList) {
+        int[] value = new int[editList.size() * 4];
+        int i = 0;
+        for (Edit edit : editList) {
+            value[i++] = edit.getBeginA();
+            value[i++] = edit.getEndA();
+            value[i++] = edit.getBeginB();
+            value[i++] = edit.getEndB();
+        }
+        put(toKey(oldId, newId, algorithm, comparator, bigFileThreshold), value);
+    }
+
+    private static String toKey(
+            AnyObjectId oldId,
+            AnyObjectId newId,
+            DiffAlgorithm algorithm,
+            RawTextComparator comparator,
+            int bigFileThreshold) {
+        return oldId.name() + ":" + newId.name()
+                + ":" + getAlgorithmName(algorithm)
+                + ":" + getComparatorName(comparator)
+                + ":" + bigFileThreshold;
+    }
+
+    /**
+     * get the name of the algorithm, including the settings which change the edits it calculates
+     */
+    private static String getAlgorithmName(DiffAlgorithm algorithm) {
+        // the adaptive algorithm describes its settings by itself, while the other ones only have the identity in toString
+        if (algorithm instanceof AdaptiveDiffAlgorithm) {
+            return algorithm.toString();
+        }
+        return algorithm.getClass().getName();
+    }
+
+    static String getComparatorName(RawTextComparator comparator) {
+        if (comparator == RawTextComparator.DEFAULT) {
+            return "DEFAULT";
+        }
+        if (comparator == RawTextComparator.WS_IGNORE_ALL) {
+            return "WS_IGNORE_ALL";
+        }
+        if (comparator == RawTextComparator.WS_IGNORE_LEADING) {
+            return "WS_IGNORE_LEADING";
+        }
+        if (comparator == RawTextComparator.WS_IGNORE_TRAILING) {
+            return "WS_IGNORE_TRAILING";
+        }
+        if (comparator == RawTextComparator.WS_IGNORE_CHANGE) {
+            return "WS_IGNORE_CHANGE";
+        }
+        return comparator.getClass().getName();
+    }
+
+    @Override
+    protected String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    protected int[] readValue(DataInput in) throws IOException {
+        int[] value = new int[in.readInt()];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = in.readInt();
+        }
+        return value;
+    }
+
+    @Override
+    protected void writeValue(DataOutput out, int[] value) throws IOException {
+        out.writeInt(value.length);
+        for (int v : value) {
+            out.writeInt(v);
+        }
+    }
+
+}
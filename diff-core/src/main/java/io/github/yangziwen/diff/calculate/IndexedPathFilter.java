@@ -0,0 +1,41 @@
+package io.github.yangziwen.diff.calculate;
+
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * The indexed path filter
+ * a tree filter which only includes the paths existing in the index tree of the walk,
+ * so that the untracked directories of the working tree are never entered
+ *
+ * @author yangziwen
+ */
+class IndexedPathFilter extends TreeFilter {
+
+    private final int indexTree;
+
+    IndexedPathFilter(int indexTree) {
+        this.indexTree = indexTree;
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+        return walker.getRawMode(indexTree) != 0;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+        return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "INDEXED_PATH(" + indexTree + ")";
+    }
+
+}
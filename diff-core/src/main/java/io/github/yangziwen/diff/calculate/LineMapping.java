@@ -0,0 +1,107 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.jgit.diff.Edit;
+
+/**
+ * The line mapping
+ * an immutable index translating the lines of the old side of a diff entry to the lines of the new side,
+ * the line numbers used by the queries are 1-based, as reported by the check tools
+ *
+ * @author yangziwen
+ */
+public class LineMapping {
+
+    /**
+     * the result of the lines deleted or replaced in the new side
+     */
+    public static final int DELETED = -1;
+
+    public static final LineMapping IDENTITY = new LineMapping(new int[0], new int[0], new int[0]);
+
+    /**
+     * the 0-based begin positions of the edits in the old side, sorted
+     */
+    private final int[] beginAs;
+
+    /**
+     * the 0-based end positions of the edits in the old side
+     */
+    private final int[] endAs;
+
+    /**
+     * the 0-based end positions of the edits in the new side
+     */
+    private final int[] endBs;
+
+    private LineMapping(int[] beginAs, int[] endAs, int[] endBs) {
+        this.beginAs = beginAs;
+        this.endAs = endAs;
+        this.endBs = endBs;
+    }
+
+    /**
+     * build the index from the edits of a diff entry
+     *
+     * @param editList  the edits
+     * @return the line mapping
+     */
+    public static LineMapping of(List<Edit> editList) {
+        if (editList == null || editList.isEmpty()) {
+            return IDENTITY;
+        }
+        List<Edit> sortedEdits = new ArrayList<>(editList);
+        sortedEdits.sort(Comparator.comparingInt(Edit::getBeginA));
+        int size = sortedEdits.size();
+        int[] beginAs = new int[size];
+        int[] endAs = new int[size];
+        int[] endBs = new int[size];
+        for (int i = 0; i < size; i++) {
+            Edit edit = sortedEdits.get(i);
+            beginAs[i] = edit.getBeginA();
+            endAs[i] = edit.getEndA();
+            endBs[i] = edit.getEndB();
+        }
+        return new LineMapping(beginAs, endAs, endBs);
+    }
+
+    /**
+     * translate the line in the old side to the line in the new side
+     *
+     * @param oldLine   the 1-based line number in the old side
+     * @return the 1-based line number in the new side, or DELETED if the line is deleted or replaced
+     */
+    public int translate(int oldLine) {
+        int position = oldLine - 1;
+        int index = floorEdit(position);
+        if (index < 0) {
+            return oldLine;
+        }
+        if (position < endAs[index]) {
+            return DELETED;
+        }
+        // the lines after an edit are shifted by the difference between the ends of the edit in both sides
+        return position + endBs[index] - endAs[index] + 1;
+    }
+
+    /**
+     * find the index of the last edit beginning at or before the position
+     */
+    private int floorEdit(int position) {
+        int low = 0;
+        int high = beginAs.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (beginAs[mid] <= position) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+}
@@ -0,0 +1,91 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * The merge base cache
+ * cache the merge bases keyed by the pair of the commit ids, which never change once calculated,
+ * the empty string is cached for the commits without merge base
+ *
+ * @author yangziwen
+ */
+public class MergeBaseCache extends PersistentLruCache<String> {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final String FILE_NAME = "merge-base.cache";
+
+    private static final String FORMAT = "merge-base-cache-v1";
+
+    private static final ConcurrentMap<File, MergeBaseCache> CACHES = new ConcurrentHashMap<>();
+
+    MergeBaseCache(File file, int maxEntries) {
+        super(file, maxEntries);
+    }
+
+    /**
+     * get the merge base cache of the repository,
+     * the cache is shared by all the calculations against the same repository in the jvm,
+     * and keeps the largest bound requested by them
+     *
+     * @param repository    the repository
+     * @param maxEntries    the max number of cached merge bases
+     * @return the merge base cache
+     */
+    public static MergeBaseCache open(Repository repository, int maxEntries) {
+        File file = new File(new File(repository.getDirectory(), CACHE_DIR_NAME), FILE_NAME).getAbsoluteFile();
+        MergeBaseCache cache = CACHES.computeIfAbsent(file, key -> new MergeBaseCache(key, maxEntries));
+        if (cache.getMaxEntries() < maxEntries) {
+            cache.setMaxEntries(maxEntries);
+        }
+        return cache;
+    }
+
+    /**
+     * get the cached merge base of the two commits
+     *
+     * @param commitId1     the id of the commit
+     * @param commitId2     the id of the other commit
+     * @return the merge base, the empty string if there is no merge base, or null if not cached
+     */
+    public String get(AnyObjectId commitId1, AnyObjectId commitId2) {
+        return get(toKey(commitId1, commitId2));
+    }
+
+    public void put(AnyObjectId commitId1, AnyObjectId commitId2, String mergeBase) {
+        put(toKey(commitId1, commitId2), mergeBase);
+    }
+
+    /**
+     * the merge base is symmetric, so that the ids are ordered in the key
+     */
+    private static String toKey(AnyObjectId commitId1, AnyObjectId commitId2) {
+        return commitId1.compareTo(commitId2) <= 0
+                ? commitId1.name() + ":" + commitId2.name()
+                : commitId2.name() + ":" + commitId1.name();
+    }
+
+    @Override
+    protected String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    protected String readValue(DataInput in) throws IOException {
+        return in.readUTF();
+    }
+
+    @Override
+    protected void writeValue(DataOutput out, String value) throws IOException {
+        out.writeUTF(value);
+    }
+
+}
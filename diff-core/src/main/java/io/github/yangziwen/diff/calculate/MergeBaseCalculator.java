@@ -1,21 +1,51 @@
 package io.github.yangziwen.diff.calculate;
 
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
 
+import lombok.Builder;
+import lombok.Getter;
+
 /**
  * The merge base calculator
- * calculate the merge base between the specified two refs
+ * calculate the merge base between the specified two refs, or the merge bases of many refs against one target ref
  *
  * @author yangziwen
  */
+@Getter
 public class MergeBaseCalculator {
 
+    /**
+     * whether to keep the merge bases in the merge base cache under the git directory
+     */
+    private final boolean mergeBaseCacheEnabled;
+
+    private final int mergeBaseCacheSize;
+
+    public MergeBaseCalculator() {
+        this(false, MergeBaseCache.DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * create the calculator
+     *
+     * @param mergeBaseCacheEnabled     whether to keep the merge bases in the merge base cache
+     * @param mergeBaseCacheSize        the max number of cached merge bases, the default one is used if not positive
+     */
+    @Builder
+    public MergeBaseCalculator(boolean mergeBaseCacheEnabled, int mergeBaseCacheSize) {
+        this.mergeBaseCacheEnabled = mergeBaseCacheEnabled;
+        this.mergeBaseCacheSize = mergeBaseCacheSize > 0 ? mergeBaseCacheSize : MergeBaseCache.DEFAULT_MAX_ENTRIES;
+    }
+
     /**
      * calculate the merge base between two refs
      *
@@ -26,12 +56,31 @@ public class MergeBaseCalculator {
      * @throws Exception        throw Exception when error happens
      */
     public String calculateMergeBase(File repoDir, String ref1, String ref2) throws Exception {
-        try (Git git = Git.open(repoDir);
-                ObjectReader reader = git.getRepository().newObjectReader();
-                RevWalk rw = new RevWalk(git.getRepository())) {
+        try (RepositorySession session = RepositorySession.open(repoDir)) {
+            return calculateMergeBase(session, ref1, ref2);
+        }
+    }
+
+    /**
+     * calculate the merge base between two refs with the opened repository session
+     *
+     * @param session           the repository session
+     * @param ref1              the ref
+     * @param ref2              the other ref
+     * @return                  the merge base
+     * @throws Exception        throw Exception when error happens
+     */
+    public String calculateMergeBase(RepositorySession session, String ref1, String ref2) throws Exception {
+        MergeBaseCache cache = getMergeBaseCache(session);
+        try (RevWalk rw = new RevWalk(session.getReader())) {
+
+            RevCommit commit1 = rw.parseCommit(session.parseCommit(ref1));
+            RevCommit commit2 = rw.parseCommit(session.parseCommit(ref2));
 
-            RevCommit commit1 = rw.parseCommit(git.getRepository().resolve(ref1));
-            RevCommit commit2 = rw.parseCommit(git.getRepository().resolve(ref2));
+            String cachedMergeBase = cache != null ? cache.get(commit1, commit2) : null;
+            if (cachedMergeBase != null) {
+                return cachedMergeBase;
+            }
 
             rw.setRevFilter(RevFilter.MERGE_BASE);
             rw.markStart(commit1);
@@ -39,9 +88,112 @@ public class MergeBaseCalculator {
 
             RevCommit mergeBase = rw.next();
 
-            return mergeBase != null ? mergeBase.name() : "";
+            String result = mergeBase != null ? mergeBase.name() : "";
+            if (cache != null) {
+                cache.put(commit1, commit2, result);
+                cache.flushQuietly();
+            }
+            return result;
 
         }
     }
 
+    /**
+     * calculate the merge base between two refs on the executor
+     *
+     * @param repoDir           the git directory
+     * @param ref1              the ref
+     * @param ref2              the other ref
+     * @param executor          the executor to run the calculation
+     * @return                  the future of the merge base
+     */
+    public CompletableFuture<String> calculateMergeBaseAsync(File repoDir, String ref1, String ref2, Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculateMergeBase(repoDir, ref1, ref2), executor);
+    }
+
+    /**
+     * calculate the merge base between two refs with the opened repository session on the executor,
+     * the session should not be used by others until the future is completed
+     *
+     * @param session           the repository session
+     * @param ref1              the ref
+     * @param ref2              the other ref
+     * @param executor          the executor to run the calculation
+     * @return                  the future of the merge base
+     */
+    public CompletableFuture<String> calculateMergeBaseAsync(
+            RepositorySession session, String ref1, String ref2, Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculateMergeBase(session, ref1, ref2), executor);
+    }
+
+    /**
+     * calculate the merge bases of many refs against the same target ref
+     *
+     * @param repoDir           the git directory
+     * @param refs              the refs
+     * @param targetRef         the target ref, such as the main branch
+     * @return                  the merge bases keyed by the refs, in the order of the refs
+     * @throws Exception        throw Exception when error happens
+     */
+    public Map<String, String> calculateMergeBases(File repoDir, List<String> refs, String targetRef) throws Exception {
+        try (RepositorySession session = RepositorySession.open(repoDir)) {
+            return calculateMergeBases(session, refs, targetRef);
+        }
+    }
+
+    /**
+     * calculate the merge bases of many refs against the same target ref with the opened repository session,
+     * the refs share a single walk, so that the history of the target is walked only once,
+     * the merge base is the empty string for the ref without merge base
+     *
+     * @param session           the repository session
+     * @param refs              the refs
+     * @param targetRef         the target ref, such as the main branch
+     * @return                  the merge bases keyed by the refs, in the order of the refs
+     * @throws Exception        throw Exception when error happens
+     */
+    public Map<String, String> calculateMergeBases(
+            RepositorySession session, List<String> refs, String targetRef) throws Exception {
+        MergeBaseCache cache = getMergeBaseCache(session);
+        Map<String, String> mergeBases = new LinkedHashMap<>();
+        try (RevWalk rw = new RevWalk(session.getReader())) {
+            RevCommit target = rw.parseCommit(session.parseCommit(targetRef));
+            BatchMergeBaseFinder finder = null;
+            for (String ref : refs) {
+                RevCommit commit = rw.parseCommit(session.parseCommit(ref));
+                String mergeBase = cache != null ? cache.get(commit, target) : null;
+                if (mergeBase == null) {
+                    if (finder == null) {
+                        finder = new BatchMergeBaseFinder(rw, target);
+                    }
+                    RevCommit mergeBaseCommit = finder.findMergeBase(commit);
+                    mergeBase = mergeBaseCommit != null ? mergeBaseCommit.name() : "";
+                    if (cache != null) {
+                        cache.put(commit, target, mergeBase);
+                    }
+                }
+                mergeBases.put(ref, mergeBase);
+            }
+        } finally {
+            if (cache != null) {
+                cache.flushQuietly();
+            }
+        }
+        return mergeBases;
+    }
+
+    public CompletableFuture<Map<String, String>> calculateMergeBasesAsync(
+            File repoDir, List<String> refs, String targetRef, Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculateMergeBases(repoDir, refs, targetRef), executor);
+    }
+
+    public CompletableFuture<Map<String, String>> calculateMergeBasesAsync(
+            RepositorySession session, List<String> refs, String targetRef, Executor executor) {
+        return AsyncHelper.supplyAsync(() -> calculateMergeBases(session, refs, targetRef), executor);
+    }
+
+    private MergeBaseCache getMergeBaseCache(RepositorySession session) {
+        return mergeBaseCacheEnabled ? MergeBaseCache.open(session.getRepository(), mergeBaseCacheSize) : null;
+    }
+
 }
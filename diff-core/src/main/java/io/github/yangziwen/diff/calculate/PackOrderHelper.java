@@ -0,0 +1,82 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.file.Pack;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * The pack order helper
+ * sort the objects by their positions in the pack files, so that loading them seeks forward through each pack.
+ * The helper relies on unsupported jgit internals: the positions are read through ObjectDirectory and Pack
+ * of the org.eclipse.jgit.internal package, which may change in any release, and Pack only exists since jgit 5.11.
+ * All the accesses stay behind the fallback, so that the original order is kept
+ * when the classes are missing or changed after upgrading jgit
+ *
+ * @author yangziwen
+ */
+class PackOrderHelper {
+
+    private PackOrderHelper() {}
+
+    /**
+     * sort the items by the pack containing their objects and the offsets of the objects in the pack,
+     * the items whose objects are loose or missing are put at the end, and the items are kept in the original order
+     * when the positions are not available from the object database
+     *
+     * @param repository    the repository
+     * @param items         the items to sort
+     * @param idFunction    the function to get the id of the object of an item, which may return null
+     * @return the sorted items
+     */
+    static <T> List<T> sortByPackOffset(Repository repository, List<T> items, Function<T, ObjectId> idFunction) {
+        if (items.size() < 2) {
+            return items;
+        }
+        try {
+            return doSortByPackOffset(repository, items, idFunction);
+        } catch (IOException | RuntimeException | LinkageError e) {
+            return items;
+        }
+    }
+
+    private static <T> List<T> doSortByPackOffset(
+            Repository repository, List<T> items, Function<T, ObjectId> idFunction) throws IOException {
+        if (!(repository.getObjectDatabase() instanceof ObjectDirectory)) {
+            return items;
+        }
+        List<Pack> packs = new ArrayList<>(((ObjectDirectory) repository.getObjectDatabase()).getPacks());
+        // the items referring to the same object may still be different items
+        Map<T, long[]> positionMap = new IdentityHashMap<>();
+        for (T item : items) {
+            positionMap.put(item, findPosition(packs, idFunction.apply(item)));
+        }
+        List<T> sortedItems = new ArrayList<>(items);
+        sortedItems.sort(Comparator
+                .<T>comparingLong(item -> positionMap.get(item)[0])
+                .thenComparingLong(item -> positionMap.get(item)[1]));
+        return sortedItems;
+    }
+
+    private static long[] findPosition(List<Pack> packs, ObjectId objectId) throws IOException {
+        if (objectId == null) {
+            return new long[] { packs.size(), 0 };
+        }
+        for (int i = 0; i < packs.size(); i++) {
+            long offset = packs.get(i).getIndex().findOffset(objectId);
+            if (offset >= 0) {
+                return new long[] { i, offset };
+            }
+        }
+        return new long[] { packs.size(), 0 };
+    }
+
+}
@@ -0,0 +1,162 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * The parallel helper
+ * Run the per-file work of the calculators on a bounded pool,
+ * every worker thread owns its own object reader when the work reads the objects through one
+ *
+ * @author yangziwen
+ */
+class ParallelHelper {
+
+    private static final int WINDOW_SIZE_PER_THREAD = 4;
+
+    private ParallelHelper() {}
+
+    /**
+     * apply the function to every item and hand the results to the consumer in the order of the items,
+     * the object reader of each worker is created when the worker applies the function for the first time
+     *
+     * @param repository    the repository to create the object readers of the workers from
+     * @param reader        the object reader used when running sequentially
+     * @param parallelism   the max number of worker threads
+     * @param items         the items to process
+     * @param function      the function to apply to each item
+     * @param consumer      the consumer of the results
+     * @throws Exception    throw the first Exception thrown by the function
+     */
+    static <T, R> void forEachOrdered(
+            Repository repository,
+            ObjectReader reader,
+            int parallelism,
+            List<T> items,
+            ReaderFunction<T, R> function,
+            Consumer<R> consumer) throws Exception {
+
+        if (Math.min(parallelism, items.size()) <= 1) {
+            for (T item : items) {
+                consumer.accept(function.apply(item, reader));
+            }
+            return;
+        }
+
+        List<ObjectReader> readers = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<ObjectReader> localReader = ThreadLocal.withInitial(() -> {
+            ObjectReader workerReader = repository.newObjectReader();
+            readers.add(workerReader);
+            return workerReader;
+        });
+
+        try {
+            forEachOrdered(parallelism, items, item -> function.apply(item, localReader.get()), consumer);
+        } finally {
+            // the workers are terminated when returned, so that no reader is still in use
+            readers.forEach(ObjectReader::close);
+        }
+    }
+
+    /**
+     * apply the function to every item and hand the results to the consumer in the order of the items,
+     * for the functions which do not read the objects through a reader of the worker
+     *
+     * @param parallelism   the max number of worker threads
+     * @param items         the items to process
+     * @param function      the function to apply to each item
+     * @param consumer      the consumer of the results
+     * @throws Exception    throw the first Exception thrown by the function
+     */
+    static <T, R> void forEachOrdered(
+            int parallelism,
+            List<T> items,
+            ItemFunction<T, R> function,
+            Consumer<R> consumer) throws Exception {
+
+        int threadCount = Math.min(parallelism, items.size());
+
+        if (threadCount <= 1) {
+            for (T item : items) {
+                consumer.accept(function.apply(item));
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, new WorkerThreadFactory());
+
+        try {
+            // keep a bounded window of submitted tasks, so that the finished results do not pile up
+            int windowSize = threadCount * WINDOW_SIZE_PER_THREAD;
+            Deque<Future<R>> window = new ArrayDeque<>(windowSize);
+            int next = 0;
+            while (next < items.size() || !window.isEmpty()) {
+                while (next < items.size() && window.size() < windowSize) {
+                    T item = items.get(next++);
+                    window.addLast(executor.submit(() -> function.apply(item)));
+                }
+                consumer.accept(getResult(window.removeFirst()));
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static <R> R getResult(Future<R> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    interface ReaderFunction<T, R> {
+
+        R apply(T item, ObjectReader reader) throws Exception;
+
+    }
+
+    @FunctionalInterface
+    interface ItemFunction<T, R> {
+
+        R apply(T item) throws Exception;
+
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+        private final int poolNumber = POOL_COUNTER.incrementAndGet();
+
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "diff-check-" + poolNumber + "-worker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.function.Predicate;
+
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * The path predicate filter
+ * a tree filter which only includes the files whose repository relative paths match the predicate,
+ * all the subtrees are entered, since a predicate can not tell whether a directory contains any matched file.
+ * The files missing in any of the trees can be included as well, so that the rename detection is able to pair
+ * the files moved between the matched paths and the other paths, and the entries are filtered after the pairing
+ *
+ * @author yangziwen
+ */
+public class PathPredicateFilter extends TreeFilter {
+
+    private final Predicate<String> predicate;
+
+    private final boolean renameCandidatesIncluded;
+
+    private PathPredicateFilter(Predicate<String> predicate, boolean renameCandidatesIncluded) {
+        this.predicate = predicate;
+        this.renameCandidatesIncluded = renameCandidatesIncluded;
+    }
+
+    /**
+     * create the filter
+     *
+     * @param predicate     the predicate to test the repository relative path of the files, null to accept all
+     * @return the tree filter
+     */
+    public static TreeFilter create(Predicate<String> predicate) {
+        return create(predicate, false);
+    }
+
+    /**
+     * create the filter
+     *
+     * @param predicate                 the predicate to test the repository relative path of the files, null to accept all
+     * @param renameCandidatesIncluded  include the files missing in any of the trees, which may be renamed from or to the matched paths
+     * @return the tree filter
+     */
+    public static TreeFilter create(Predicate<String> predicate, boolean renameCandidatesIncluded) {
+        return predicate != null ? new PathPredicateFilter(predicate, renameCandidatesIncluded) : TreeFilter.ALL;
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+        if (walker.isSubtree() || predicate.test(walker.getPathString())) {
+            return true;
+        }
+        return renameCandidatesIncluded && isMissingInAnyTree(walker);
+    }
+
+    private boolean isMissingInAnyTree(TreeWalk walker) {
+        for (int i = 0; i < walker.getTreeCount(); i++) {
+            if (walker.getRawMode(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+        return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PATH_PREDICATE(" + predicate + (renameCandidatesIncluded ? ", RENAME_CANDIDATES" : "") + ")";
+    }
+
+}
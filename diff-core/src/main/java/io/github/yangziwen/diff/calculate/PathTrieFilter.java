@@ -0,0 +1,92 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * The path trie filter
+ * a tree filter which includes the specified paths and everything under them, like an OrTreeFilter of PathFilters,
+ * the paths are kept in a byte trie, so that each entry is matched in time proportional to its path length,
+ * and the subtrees containing none of the paths are pruned
+ *
+ * @author yangziwen
+ */
+public class PathTrieFilter extends TreeFilter {
+
+    private static final byte SEPARATOR = '/';
+
+    private final Node root;
+
+    private final int pathCount;
+
+    private PathTrieFilter(Node root, int pathCount) {
+        this.root = root;
+        this.pathCount = pathCount;
+    }
+
+    /**
+     * create the filter
+     *
+     * @param paths     the repository relative paths, without the leading and trailing slashes
+     * @return the tree filter
+     */
+    public static PathTrieFilter create(Collection<String> paths) {
+        Node root = new Node();
+        for (String path : paths) {
+            Node node = root;
+            for (byte b : Constants.encode(path)) {
+                node = node.children.computeIfAbsent(b, key -> new Node());
+            }
+            node.terminal = true;
+        }
+        return new PathTrieFilter(root, paths.size());
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+        byte[] rawPath = walker.getRawPath();
+        int length = walker.getPathLength();
+        Node node = root;
+        for (int i = 0; i < length; i++) {
+            // the entry is under one of the paths
+            if (node.terminal && rawPath[i] == SEPARATOR) {
+                return true;
+            }
+            node = node.children.get(rawPath[i]);
+            if (node == null) {
+                return false;
+            }
+        }
+        // the entry is one of the paths, or a directory containing some of them
+        return node.terminal || node.children.containsKey(SEPARATOR);
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+        return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PATH_TRIE(" + pathCount + " paths)";
+    }
+
+    private static class Node {
+
+        private final Map<Byte, Node> children = new HashMap<>(4);
+
+        private boolean terminal;
+
+    }
+
+}
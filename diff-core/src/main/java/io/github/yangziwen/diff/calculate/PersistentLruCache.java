@@ -0,0 +1,173 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The persistent lru cache
+ * keep the entries in memory with lru eviction and persist them to a single file under the git directory
+ *
+ * @author yangziwen
+ */
+public abstract class PersistentLruCache<V> {
+
+    /**
+     * the directory under the git directory to store the cache files
+     */
+    public static final String CACHE_DIR_NAME = "diff-check";
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentLruCache.class);
+
+    private final File file;
+
+    private int maxEntries;
+
+    private final Map<String, V> entries;
+
+    private boolean modified;
+
+    protected PersistentLruCache(File file, int maxEntries) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, V>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > PersistentLruCache.this.maxEntries;
+            }
+
+        };
+        load();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * change the max number of the entries, the least recently used entries are evicted when the bound is lowered
+     *
+     * @param maxEntries    the max number of the entries
+     */
+    public synchronized void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            modified = true;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    protected synchronized V get(String key) {
+        return entries.get(key);
+    }
+
+    protected synchronized void put(String key, V value) {
+        entries.put(key, value);
+        modified = true;
+    }
+
+    /**
+     * write the cache entries to the cache file if any entry has been added
+     *
+     * @throws IOException  throw IOException when failed to write the cache file
+     */
+    public synchronized void flush() throws IOException {
+        if (!modified) {
+            return;
+        }
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("failed to create cache directory " + dir);
+        }
+        File tmpFile = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeUTF(getFormat());
+                out.writeInt(entries.size());
+                // the eldest entry is written first, so that the access order survives the reloading
+                for (Map.Entry<String, V> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    writeValue(out, entry.getValue());
+                }
+            }
+            Files.move(tmpFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+    }
+
+    /**
+     * flush the cache and only log a warning when failed, the cache should never break the check
+     */
+    public void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.warn("failed to write cache file " + file, e);
+        }
+    }
+
+    private void load() {
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (!getFormat().equals(in.readUTF())) {
+                return;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String key = in.readUTF();
+                entries.put(key, readValue(in));
+            }
+        } catch (IOException e) {
+            logger.warn("ignore the broken cache file " + file, e);
+            entries.clear();
+        }
+    }
+
+    /**
+     * the format identifier written at the head of the cache file,
+     * the file is ignored when the identifier does not match
+     *
+     * @return the format identifier
+     */
+    protected abstract String getFormat();
+
+    protected abstract V readValue(DataInput in) throws IOException;
+
+    protected abstract void writeValue(DataOutput out, V value) throws IOException;
+
+}
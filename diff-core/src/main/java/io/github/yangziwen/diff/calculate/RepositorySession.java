@@ -0,0 +1,94 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FilenameUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * The repository session
+ * own one opened repository together with its object reader and parsed commits,
+ * so that the diff, merge base and blame calculators can share them instead of opening the repository each time.
+ * The session is not thread safe, the calculations using it should not run concurrently.
+ *
+ * @author yangziwen
+ */
+public class RepositorySession implements AutoCloseable {
+
+    private final File repoDir;
+
+    private final Git git;
+
+    private final ObjectReader reader;
+
+    private final RevWalk revWalk;
+
+    private RepositorySession(File repoDir, Git git) {
+        this.repoDir = repoDir;
+        this.git = git;
+        this.reader = git.getRepository().newObjectReader();
+        this.revWalk = new RevWalk(reader);
+    }
+
+    /**
+     * open the session of the repository
+     *
+     * @param repoDir           the git directory
+     * @return the session
+     * @throws IOException      throw IOException when failed to open the repository
+     */
+    public static RepositorySession open(File repoDir) throws IOException {
+        File normalizedRepoDir = new File(FilenameUtils.normalize(repoDir.getAbsolutePath()));
+        return new RepositorySession(normalizedRepoDir, Git.open(normalizedRepoDir));
+    }
+
+    /**
+     * the normalized git directory which the session is opened with
+     *
+     * @return the git directory
+     */
+    public File getRepoDir() {
+        return repoDir;
+    }
+
+    public Git getGit() {
+        return git;
+    }
+
+    public Repository getRepository() {
+        return git.getRepository();
+    }
+
+    public ObjectReader getReader() {
+        return reader;
+    }
+
+    /**
+     * resolve and parse the commit of the revision
+     *
+     * @param rev               the revision
+     * @return the parsed commit
+     * @throws IOException      throw IOException when failed to parse the commit
+     */
+    public RevCommit parseCommit(String rev) throws IOException {
+        ObjectId commitId = getRepository().resolve(rev);
+        if (commitId == null) {
+            throw new IllegalArgumentException("failed to resolve the revision " + rev);
+        }
+        return revWalk.parseCommit(commitId);
+    }
+
+    @Override
+    public void close() {
+        revWalk.close();
+        reader.close();
+        git.close();
+    }
+
+}
@@ -0,0 +1,47 @@
+package io.github.yangziwen.diff.calculate;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * The tree diff entry
+ * a diff entry created from the modes and ids of one path in two trees of a multi-tree walk
+ *
+ * @author yangziwen
+ */
+class TreeDiffEntry extends DiffEntry {
+
+    private static final AbbreviatedObjectId A_ZERO = AbbreviatedObjectId.fromObjectId(ObjectId.zeroId());
+
+    private TreeDiffEntry(
+            ChangeType changeType,
+            String path,
+            FileMode oldMode,
+            AnyObjectId oldId,
+            FileMode newMode,
+            AnyObjectId newId) {
+        this.changeType = changeType;
+        this.oldPath = changeType == ChangeType.ADD ? DEV_NULL : path;
+        this.newPath = changeType == ChangeType.DELETE ? DEV_NULL : path;
+        this.oldMode = oldMode;
+        this.newMode = newMode;
+        this.oldId = oldId != null ? AbbreviatedObjectId.fromObjectId(oldId) : A_ZERO;
+        this.newId = newId != null ? AbbreviatedObjectId.fromObjectId(newId) : A_ZERO;
+    }
+
+    static DiffEntry add(String path, FileMode newMode, AnyObjectId newId) {
+        return new TreeDiffEntry(ChangeType.ADD, path, FileMode.MISSING, null, newMode, newId);
+    }
+
+    static DiffEntry delete(String path, FileMode oldMode, AnyObjectId oldId) {
+        return new TreeDiffEntry(ChangeType.DELETE, path, oldMode, oldId, FileMode.MISSING, null);
+    }
+
+    static DiffEntry modify(String path, FileMode oldMode, AnyObjectId oldId, FileMode newMode, AnyObjectId newId) {
+        return new TreeDiffEntry(ChangeType.MODIFY, path, oldMode, oldId, newMode, newId);
+    }
+
+}
@@ -0,0 +1,66 @@
+package io.github.yangziwen.diff.calculate;
+
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.HistogramDiff;
+import org.eclipse.jgit.diff.MyersDiff;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveDiffAlgorithmTest {
+
+    @Test
+    public void testSelectHistogramDiff() {
+        AdaptiveDiffAlgorithm algorithm = new AdaptiveDiffAlgorithm();
+        RawText oldText = newRawText(2000, 1, "");
+        RawText newText = newRawText(2000, 1, "changed ");
+        Assert.assertTrue(algorithm.selectAlgorithm(RawTextComparator.DEFAULT, oldText, newText) instanceof HistogramDiff);
+    }
+
+    @Test
+    public void testSelectMyersDiff() {
+        AdaptiveDiffAlgorithm algorithm = new AdaptiveDiffAlgorithm();
+        RawText oldText = newRawText(2000, 10, "");
+        RawText newText = newRawText(2000, 10, "changed ");
+        Assert.assertSame(MyersDiff.INSTANCE, algorithm.selectAlgorithm(RawTextComparator.DEFAULT, oldText, newText));
+    }
+
+    @Test
+    public void testDiffSameAsHistogramDiff() {
+        RawText oldText = new RawText("a\nb\nc\nd\n".getBytes());
+        RawText newText = new RawText("a\nB\nc\nd\ne\n".getBytes());
+        Assert.assertEquals(
+                new HistogramDiff().diff(RawTextComparator.DEFAULT, oldText, newText),
+                new AdaptiveDiffAlgorithm().diff(RawTextComparator.DEFAULT, oldText, newText));
+    }
+
+    @Test
+    public void testFallbackWhenTooLarge() {
+        AdaptiveDiffAlgorithm algorithm = new AdaptiveDiffAlgorithm();
+        algorithm.setMaxLines(100);
+        RawText oldText = new RawText(("head\n" + repeat("x\n", 60) + "tail\n").getBytes());
+        RawText newText = new RawText(("head\n" + repeat("y\n", 60) + "tail\n").getBytes());
+        EditList edits = algorithm.diff(RawTextComparator.DEFAULT, oldText, newText);
+        Assert.assertEquals(1, edits.size());
+        Assert.assertEquals(new Edit(1, 61, 1, 61), edits.get(0));
+    }
+
+    private RawText newRawText(int lines, int period, String prefix) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            builder.append(i % 2 == 0 ? prefix : "").append("line ").append(i / period).append("\n");
+        }
+        return new RawText(builder.toString().getBytes());
+    }
+
+    private String repeat(String str, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(str);
+        }
+        return builder.toString();
+    }
+
+}
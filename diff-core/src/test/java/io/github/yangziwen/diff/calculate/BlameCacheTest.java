@@ -0,0 +1,90 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BlameCacheTest {
+
+    private static final ObjectId START_ID = ObjectId.fromString("1111111111111111111111111111111111111111");
+
+    private static final ObjectId BASE_ID = ObjectId.fromString("2222222222222222222222222222222222222222");
+
+    private static final ObjectId SOURCE_ID = ObjectId.fromString("3333333333333333333333333333333333333333");
+
+    private static final PersonIdent ALICE = new PersonIdent("alice", "alice@test.com", 1500000000000L, 480);
+
+    private static final PersonIdent BOB = new PersonIdent("bob", "bob@test.com", 1500000060000L, 0);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGetAndPut() {
+        BlameCache cache = new BlameCache(new File(folder.getRoot(), "blame.cache"), 10);
+        BoundedBlameResult result = newResult();
+
+        cache.put(START_ID, BASE_ID, "file.txt", RawTextComparator.DEFAULT, result);
+
+        List<Edit> editList = Arrays.asList(new Edit(1, 1, 1, 3));
+        Assert.assertSame(result, cache.get(START_ID, BASE_ID, "file.txt", RawTextComparator.DEFAULT, editList));
+        Assert.assertNull(cache.get(START_ID, null, "file.txt", RawTextComparator.DEFAULT, editList));
+        Assert.assertNull(cache.get(START_ID, BASE_ID, "other.txt", RawTextComparator.DEFAULT, editList));
+        Assert.assertNull(cache.get(START_ID, BASE_ID, "file.txt", RawTextComparator.WS_IGNORE_ALL, editList));
+        // the cached result is not used for the lines never blamed
+        Assert.assertNull(cache.get(START_ID, BASE_ID, "file.txt", RawTextComparator.DEFAULT,
+                Collections.singletonList(new Edit(0, 0, 0, 2))));
+    }
+
+    @Test
+    public void testFlushAndReload() throws Exception {
+        File file = new File(new File(folder.getRoot(), "diff-check"), "blame.cache");
+        List<Edit> editList = Arrays.asList(new Edit(1, 1, 1, 4));
+
+        BlameCache cache = new BlameCache(file, 10);
+        cache.put(START_ID, BASE_ID, "file.txt", RawTextComparator.DEFAULT, newResult());
+        cache.flush();
+
+        Assert.assertTrue(file.isFile());
+
+        BlameCache reloadedCache = new BlameCache(file, 10);
+        BoundedBlameResult result = reloadedCache.get(START_ID, BASE_ID, "file.txt", RawTextComparator.DEFAULT, editList);
+        Assert.assertNotNull(result);
+        Assert.assertEquals("file.txt", result.getResultPath());
+        Assert.assertEquals(5, result.getLineCount());
+        Assert.assertFalse(result.hasSourceData(0));
+        Assert.assertEquals(SOURCE_ID, result.getSourceCommitId(1));
+        Assert.assertEquals(ALICE, result.getSourceAuthor(1));
+        Assert.assertEquals(ALICE.getTimeZoneOffset(), result.getSourceAuthor(2).getTimeZoneOffset());
+        Assert.assertEquals(BOB, result.getSourceCommitter(2));
+        Assert.assertTrue(result.isPreExisting(3));
+        Assert.assertFalse(result.hasSourceData(4));
+    }
+
+    private BoundedBlameResult newResult() {
+        return new BoundedBlameResult(
+                "file.txt",
+                new PersonIdent[] { ALICE, BOB },
+                new ObjectId[] { SOURCE_ID },
+                new int[] { 0 },
+                new int[] { 1 },
+                new int[] {
+                    BoundedBlameResult.NOT_BLAMED,
+                    0,
+                    0,
+                    BoundedBlameResult.PRE_EXISTING,
+                    BoundedBlameResult.NOT_BLAMED
+                });
+    }
+
+}
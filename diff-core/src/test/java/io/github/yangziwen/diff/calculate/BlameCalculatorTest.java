@@ -0,0 +1,349 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.blame.BlameResult;
+import org.eclipse.jgit.diff.HistogramDiff;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockitoAnnotations;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+@RunWith(PowerMockRunner.class)
+public class BlameCalculatorTest extends BaseCalculatorTest {
+
+    private static final Person ALICE = Person.builder()
+            .name("alice")
+            .email("alice@test.com")
+            .build();
+
+    private static final Person BOB = Person.builder()
+            .name("bob")
+            .email("bob@test.com")
+            .build();
+
+    @Before
+    public void before() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        setUp();
+    }
+
+    @Test
+    public void testCalculateChangedLines() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File file = new File(repoDir, "file.txt");
+            writeStringToFile(file, "line 1\nline 2\nline 3\nline 4\nline 5\n");
+            git.add().addFilepattern(file.getName()).call();
+            RevCommit oldCommit = doCommit(git, ALICE, ALICE, "old commit");
+
+            writeStringToFile(file, "line 1\nline 2\nline 3 changed\nline 4\nline 5\nline 6\n");
+            RevCommit newCommit = doCommit(git, BOB, BOB, "new commit");
+
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build()
+                    .calculateDiff(repoDir, oldCommit.name(), newCommit.name(), false);
+
+            BlameCalculator calculator = BlameCalculator.builder().build();
+            List<BlameResult> results = calculator.calculateChangedLines(repoDir, wrappers, newCommit.name());
+            BlameResult fullResult = calculator
+                    .calculate(repoDir, Collections.singletonList(file.getName()), newCommit.name())
+                    .get(0);
+
+            Assert.assertEquals(1, results.size());
+            BlameResult result = results.get(0);
+            Assert.assertEquals(file.getName(), result.getResultPath());
+            for (int line : new int[] { 2, 5 }) {
+                Assert.assertEquals(BOB.getName(), result.getSourceAuthor(line).getName());
+                Assert.assertEquals(fullResult.getSourceCommit(line), result.getSourceCommit(line));
+            }
+            // the unchanged lines are never blamed
+            Assert.assertNull(result.getSourceAuthor(0));
+            Assert.assertEquals(ALICE.getName(), fullResult.getSourceAuthor(0).getName());
+        }
+    }
+
+    @Test
+    public void testCalculateChangedLinesWithStagedNewFile() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File file = new File(repoDir, "file.txt");
+            writeStringToFile(file, "line 1\nline 2\n");
+            git.add().addFilepattern(file.getName()).call();
+            RevCommit oldCommit = doCommit(git, ALICE, ALICE, "old commit");
+
+            writeStringToFile(file, "line 1\nline 2 changed\n");
+            git.add().addFilepattern(file.getName()).call();
+            RevCommit newCommit = doCommit(git, BOB, BOB, "new commit");
+
+            File stagedFile = new File(repoDir, "staged.txt");
+            writeStringToFile(stagedFile, "staged line\n");
+            git.add().addFilepattern(stagedFile.getName()).call();
+
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build()
+                    .calculateDiff(repoDir, oldCommit.name(), newCommit.name(), true);
+            Assert.assertEquals(2, wrappers.size());
+
+            // the file only added to the index does not exist in the start revision, so that it has no blame result
+            List<BlameResult> results = BlameCalculator.builder()
+                    .build()
+                    .calculateChangedLines(repoDir, wrappers, newCommit.name());
+
+            Assert.assertEquals(1, results.size());
+            Assert.assertEquals(file.getName(), results.get(0).getResultPath());
+            Assert.assertEquals(BOB.getName(), results.get(0).getSourceAuthor(1).getName());
+        }
+    }
+
+    @Test
+    public void testCalculateInParallel() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            List<String> filePathList = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                File file = new File(repoDir, "file" + i + ".txt");
+                writeStringToFile(file, "line 1\nline 2\nline 3\n");
+                filePathList.add(file.getName());
+            }
+            git.add().addFilepattern(".").call();
+            doCommit(git, ALICE, ALICE, "old commit");
+
+            for (int i = 0; i < filePathList.size(); i += 2) {
+                writeStringToFile(new File(repoDir, filePathList.get(i)), "line 1\nline 2 changed\nline 3\n");
+            }
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git, BOB, BOB, "new commit");
+
+            // the paths are given in the reverse order to check the order of the results
+            Collections.reverse(filePathList);
+
+            List<BlameResult> sequentialResults = BlameCalculator.builder()
+                    .build()
+                    .calculate(repoDir, filePathList, newCommit.name());
+            List<BlameResult> parallelResults = BlameCalculator.builder()
+                    .parallelism(4)
+                    .build()
+                    .calculate(repoDir, filePathList, newCommit.name());
+
+            Assert.assertEquals(filePathList.size(), parallelResults.size());
+            for (int i = 0; i < filePathList.size(); i++) {
+                BlameResult sequentialResult = sequentialResults.get(i);
+                BlameResult parallelResult = parallelResults.get(i);
+                Assert.assertEquals(filePathList.get(i), parallelResult.getResultPath());
+                for (int line = 0; line < 3; line++) {
+                    Assert.assertEquals(sequentialResult.getSourceCommit(line), parallelResult.getSourceCommit(line));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCalculateBoundedChangedLines() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File file = new File(repoDir, "file.txt");
+            writeStringToFile(file, "line 1\nline 2\nline 3\nline 4\nline 5\nline 6\nline 7\nline 8\n");
+            git.add().addFilepattern(file.getName()).call();
+            RevCommit oldCommit = doCommit(git, ALICE, ALICE, "old commit");
+
+            writeStringToFile(file, "line 1\nline 2\nline 3\nline 4\nline 5\nline 6\nline 7\nline 8\nline 9\n");
+            git.add().addFilepattern(file.getName()).call();
+            RevCommit baseCommit = doCommit(git, ALICE, ALICE, "base commit");
+
+            // the file is renamed after the base commit
+            File renamedFile = new File(repoDir, "renamed.txt");
+            file.delete();
+            writeStringToFile(renamedFile, "line 1\nline 2 changed\nline 3\nline 4\nline 5\nline 6\nline 7\nline 8\nline 9\nline 10\n");
+            git.add().addFilepattern(renamedFile.getName()).call();
+            git.rm().addFilepattern(file.getName()).call();
+            RevCommit newCommit = doCommit(git, BOB, BOB, "new commit");
+
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build()
+                    .calculateDiff(repoDir, oldCommit.name(), newCommit.name(), false);
+
+            List<BoundedBlameResult> results = BlameCalculator.builder()
+                    .build()
+                    .calculateBoundedChangedLines(repoDir, wrappers, baseCommit.name(), newCommit.name());
+
+            Assert.assertEquals(1, results.size());
+            BoundedBlameResult result = results.get(0);
+            Assert.assertEquals(renamedFile.getName(), result.getResultPath());
+            Assert.assertEquals(10, result.getLineCount());
+            for (int line : new int[] { 1, 9 }) {
+                Assert.assertEquals(newCommit, result.getSourceCommitId(line));
+                Assert.assertEquals(BOB.getName(), result.getSourceAuthor(line).getName());
+                Assert.assertFalse(result.isPreExisting(line));
+            }
+            // the line added before the base commit is not traced further
+            Assert.assertTrue(result.isPreExisting(8));
+            Assert.assertNull(result.getSourceCommitId(8));
+            Assert.assertNull(result.getSourceAuthor(8));
+            // the unchanged lines are never blamed
+            Assert.assertFalse(result.hasSourceData(0));
+
+            List<BoundedBlameResult> unboundedResults = BlameCalculator.builder()
+                    .build()
+                    .calculateBoundedChangedLines(repoDir, wrappers, null, newCommit.name());
+            Assert.assertEquals(baseCommit, unboundedResults.get(0).getSourceCommitId(8));
+            Assert.assertFalse(unboundedResults.get(0).isPreExisting(8));
+        }
+    }
+
+    @Test
+    public void testCalculateBoundedChangedLinesWithMergeOfRenames() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            TestRepository<Repository> repository = new TestRepository<>(db);
+            RevCommit rootCommit = repository.commit()
+                    .add("readme.txt", "readme\n")
+                    .create();
+            RevCommit baseCommit = repository.commit().parent(rootCommit)
+                    .add("a.txt", "a 1\na 2\na 3\na 4\na 5\na 6\n")
+                    .add("b.txt", "b 1\nb 2\nb 3\nb 4\nb 5\nb 6\n")
+                    .create();
+            // both parents of the merge rename a different file of the base commit to the same path
+            RevCommit firstParent = repository.commit().parent(baseCommit)
+                    .rm("a.txt")
+                    .add("c.txt", "a 1\na 2\na 3 changed\na 4\na 5\na 6\n")
+                    .create();
+            RevCommit secondParent = repository.commit().parent(baseCommit)
+                    .rm("b.txt")
+                    .add("c.txt", "b 1\nb 2\nb 3\nb 4\nb 5 changed\nb 6\n")
+                    .create();
+            RevCommit mergeCommit = repository.commit().parent(firstParent).parent(secondParent)
+                    .add("c.txt", "a 1\na 2\na 3 changed\nmerged line\nb 4\nb 5 changed\nb 6\n")
+                    .create();
+
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build()
+                    .calculateDiff(repoDir, rootCommit.name(), mergeCommit.name(), false).stream()
+                    .filter(wrapper -> "c.txt".equals(wrapper.getNewPath()))
+                    .collect(Collectors.toList());
+            BlameCalculator calculator = BlameCalculator.builder().build();
+            BoundedBlameResult result = calculator
+                    .calculateBoundedChangedLines(repoDir, wrappers, rootCommit.name(), mergeCommit.name())
+                    .get(0);
+            BlameResult fullResult = calculator
+                    .calculate(repoDir, Collections.singletonList("c.txt"), mergeCommit.name())
+                    .get(0);
+
+            RevCommit[] expectedCommits = {
+                baseCommit, baseCommit, firstParent, mergeCommit, baseCommit, secondParent, baseCommit
+            };
+            Assert.assertEquals(expectedCommits.length, result.getLineCount());
+            for (int line = 0; line < expectedCommits.length; line++) {
+                Assert.assertEquals(expectedCommits[line], result.getSourceCommitId(line));
+                Assert.assertEquals(fullResult.getSourceCommit(line), result.getSourceCommitId(line));
+            }
+        }
+    }
+
+    @Test
+    public void testCalculateBoundedChangedLinesWithBlameCache() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File file = new File(repoDir, "file.txt");
+            File otherFile = new File(repoDir, "other.txt");
+            writeStringToFile(file, "line 1\nline 2\nline 3\n");
+            writeStringToFile(otherFile, "other 1\n");
+            git.add().addFilepattern(".").call();
+            RevCommit baseCommit = doCommit(git, ALICE, ALICE, "base commit");
+
+            writeStringToFile(file, "line 1\nline 2 changed\nline 3\n");
+            git.add().addFilepattern(file.getName()).call();
+            RevCommit commit = doCommit(git, BOB, BOB, "commit");
+
+            BlameCalculator calculator = BlameCalculator.builder()
+                    .blameCacheEnabled(true)
+                    .build();
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build()
+                    .calculateDiff(repoDir, baseCommit.name(), commit.name(), false);
+            BoundedBlameResult result = calculator
+                    .calculateBoundedChangedLines(repoDir, wrappers, baseCommit.name(), commit.name())
+                    .get(0);
+            Assert.assertEquals(commit, result.getSourceCommitId(1));
+
+            BlameCache cache = BlameCache.open(git.getRepository(), BlameCache.DEFAULT_MAX_ENTRIES);
+            Assert.assertTrue(cache.getFile().isFile());
+            Assert.assertEquals(1, cache.size());
+            BoundedBlameResult cachedResult = cache.get(commit, baseCommit, file.getName(),
+                    calculator.getComparator(), wrappers.get(0).getEditList());
+            Assert.assertSame(cachedResult.getSourceIndexes(), result.getSourceIndexes());
+
+            // the next commit does not touch the file, so that the result of the previous commit is reused
+            writeStringToFile(otherFile, "other 1 changed\n");
+            git.add().addFilepattern(otherFile.getName()).call();
+            RevCommit nextCommit = doCommit(git, BOB, BOB, "next commit");
+
+            List<DiffEntryWrapper> nextWrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build()
+                    .calculateDiff(repoDir, baseCommit.name(), nextCommit.name(), false)
+                    .stream()
+                    .filter(wrapper -> wrapper.getNewPath().equals(file.getName()))
+                    .collect(Collectors.toList());
+            List<BoundedBlameResult> nextResults = calculator
+                    .calculateBoundedChangedLines(repoDir, nextWrappers, baseCommit.name(), nextCommit.name());
+
+            Assert.assertSame(cachedResult.getSourceIndexes(), nextResults.get(0).getSourceIndexes());
+            Assert.assertEquals(2, cache.size());
+        }
+    }
+
+    @Test
+    public void testCalculateBoundedChangedLinesWithInternedPersons() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File file = new File(repoDir, "file.txt");
+            File otherFile = new File(repoDir, "other.txt");
+            writeStringToFile(file, "line 1\n");
+            writeStringToFile(otherFile, "other 1\n");
+            git.add().addFilepattern(".").call();
+            RevCommit baseCommit = doCommit(git, ALICE, ALICE, "base commit");
+
+            writeStringToFile(file, "line 1\nline 2\n");
+            writeStringToFile(otherFile, "other 1\nother 2\n");
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git, BOB, ALICE, "new commit");
+
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build()
+                    .calculateDiff(repoDir, baseCommit.name(), newCommit.name(), false);
+            List<BoundedBlameResult> results = BlameCalculator.builder()
+                    .build()
+                    .calculateBoundedChangedLines(repoDir, wrappers, baseCommit.name(), newCommit.name());
+
+            Assert.assertEquals(2, results.size());
+            BoundedBlameResult result = results.get(0);
+            BoundedBlameResult otherResult = results.get(1);
+            // the persons of the commit changing both files are shared
+            Assert.assertSame(result.getSourceAuthor(1), otherResult.getSourceAuthor(1));
+            Assert.assertSame(result.getSourceCommitter(1), otherResult.getSourceCommitter(1));
+
+            Assert.assertEquals(2, result.getPersonCount());
+            Assert.assertEquals(BOB.getName(), result.getPerson(result.getSourceAuthorIndex(1)).getName());
+            Assert.assertEquals(ALICE.getName(), result.getPerson(result.getSourceCommitterIndex(1)).getName());
+            Assert.assertEquals(-1, result.getSourceAuthorIndex(0));
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.jgit.diff.Edit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ChangedLinesTest {
+
+    // lines 2-3 are replaced, lines are deleted after line 5, lines 8-10 are inserted
+    private static final ChangedLines CHANGED_LINES = ChangedLines.of(Arrays.asList(
+            new Edit(1, 2, 1, 3),
+            new Edit(5, 7, 5, 5),
+            new Edit(6, 6, 7, 10)));
+
+    @Test
+    public void testContains() {
+        Assert.assertFalse(CHANGED_LINES.contains(1));
+        Assert.assertTrue(CHANGED_LINES.contains(2));
+        Assert.assertTrue(CHANGED_LINES.contains(3));
+        Assert.assertFalse(CHANGED_LINES.contains(4));
+        Assert.assertFalse(CHANGED_LINES.contains(5));
+        Assert.assertFalse(CHANGED_LINES.contains(6));
+        Assert.assertTrue(CHANGED_LINES.contains(8));
+        Assert.assertTrue(CHANGED_LINES.contains(10));
+        Assert.assertFalse(CHANGED_LINES.contains(11));
+    }
+
+    @Test
+    public void testCovers() {
+        Assert.assertTrue(CHANGED_LINES.covers(2, 3));
+        Assert.assertTrue(CHANGED_LINES.covers(8, 9));
+        Assert.assertFalse(CHANGED_LINES.covers(1, 3));
+        Assert.assertFalse(CHANGED_LINES.covers(3, 8));
+        Assert.assertFalse(CHANGED_LINES.covers(9, 11));
+    }
+
+    @Test
+    public void testOverlaps() {
+        Assert.assertTrue(CHANGED_LINES.overlaps(1, 2));
+        Assert.assertTrue(CHANGED_LINES.overlaps(3, 8));
+        Assert.assertTrue(CHANGED_LINES.overlaps(10, 20));
+        Assert.assertFalse(CHANGED_LINES.overlaps(4, 7));
+        Assert.assertFalse(CHANGED_LINES.overlaps(11, 20));
+    }
+
+    @Test
+    public void testFollows() {
+        Assert.assertTrue(CHANGED_LINES.follows(4));
+        Assert.assertTrue(CHANGED_LINES.follows(6));
+        Assert.assertTrue(CHANGED_LINES.follows(11));
+        Assert.assertFalse(CHANGED_LINES.follows(5));
+    }
+
+    @Test
+    public void testMergeAdjacentEdits() {
+        ChangedLines changedLines = ChangedLines.of(Arrays.asList(
+                new Edit(3, 4, 3, 5),
+                new Edit(0, 1, 0, 3)));
+        Assert.assertTrue(changedLines.covers(1, 5));
+        Assert.assertEquals(5, changedLines.getLineCount());
+    }
+
+    @Test
+    public void testEmpty() {
+        ChangedLines changedLines = ChangedLines.of(Collections.emptyList());
+        Assert.assertTrue(changedLines.isEmpty());
+        Assert.assertFalse(changedLines.contains(1));
+        Assert.assertFalse(changedLines.overlaps(1, 100));
+    }
+
+}
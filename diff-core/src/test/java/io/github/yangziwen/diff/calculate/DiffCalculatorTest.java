@@ -1,14 +1,24 @@
 package io.github.yangziwen.diff.calculate;
 
 import java.io.File;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
 import org.eclipse.jgit.diff.HistogramDiff;
 import org.eclipse.jgit.diff.RawTextComparator;
-import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.diff.SequenceComparator;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.Assert;
 import org.junit.Before;
@@ -16,7 +26,6 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.powermock.modules.junit4.PowerMockRunner;
-import org.powermock.reflect.Whitebox;
 
 @RunWith(PowerMockRunner.class)
 public class DiffCalculatorTest extends BaseCalculatorTest {
@@ -34,8 +43,7 @@ public class DiffCalculatorTest extends BaseCalculatorTest {
 
     @Test
     public void testCalculateDiff() throws Exception {
-        try (Git git = new Git(db);
-                ObjectReader reader = git.getRepository().newObjectReader()) {
+        try (Git git = new Git(db)) {
             File repoDir = git.getRepository().getDirectory().getParentFile();
             File fileToChange = new File(repoDir, "changed.txt");
             File fileRemainUnchanged = new File(repoDir, "unchanged.txt");
@@ -96,8 +104,7 @@ public class DiffCalculatorTest extends BaseCalculatorTest {
 
     @Test
     public void testDoCalculateCommitDiffWhenFileChanged() throws Exception {
-        try (Git git = new Git(db);
-                ObjectReader reader = git.getRepository().newObjectReader()) {
+        try (Git git = new Git(db)) {
             File repoDir = git.getRepository().getDirectory().getParentFile();
             File fileToChange = new File(repoDir, "changed.txt");
             File fileRemainUnchanged = new File(repoDir, "unchanged.txt");
@@ -131,9 +138,8 @@ public class DiffCalculatorTest extends BaseCalculatorTest {
             DiffCalculator calculator = DiffCalculator.builder()
                     .diffAlgorithm(new HistogramDiff())
                     .build();
-            List<DiffEntryWrapper> wrappers = Whitebox.<List<DiffEntryWrapper>>invokeMethod(
-                    calculator, "doCalculateCommitDiff",
-                    oldCommit, newCommit, reader, git, repoDir, Collections.emptySet());
+            List<DiffEntryWrapper> wrappers = calculator.calculateDiff(
+                    repoDir, oldCommit.name(), newCommit.name(), false);
 
             Assert.assertEquals(1, wrappers.size());
 
@@ -157,8 +163,7 @@ public class DiffCalculatorTest extends BaseCalculatorTest {
 
     @Test
     public void testDoCalculateCommitDiffWhenFileAdded() throws Exception {
-        try (Git git = new Git(db);
-                ObjectReader reader = git.getRepository().newObjectReader()) {
+        try (Git git = new Git(db)) {
             File repoDir = git.getRepository().getDirectory().getParentFile();
             File fileToAdd = new File(repoDir, "added.txt");
             File fileRemainUnchanged = new File(repoDir, "unchanged.txt");
@@ -175,9 +180,8 @@ public class DiffCalculatorTest extends BaseCalculatorTest {
             DiffCalculator calculator = DiffCalculator.builder()
                     .diffAlgorithm(new HistogramDiff())
                     .build();
-            List<DiffEntryWrapper> wrappers = Whitebox.<List<DiffEntryWrapper>>invokeMethod(
-                    calculator, "doCalculateCommitDiff",
-                    oldCommit, newCommit, reader, git, repoDir, Collections.emptySet());
+            List<DiffEntryWrapper> wrappers = calculator.calculateDiff(
+                    repoDir, oldCommit.name(), newCommit.name(), false);
 
             Assert.assertEquals(1, wrappers.size());
 
@@ -197,8 +201,7 @@ public class DiffCalculatorTest extends BaseCalculatorTest {
 
     @Test
     public void testDoCalculateIndexedDiffWhenFileChanged() throws Exception {
-        try (Git git = new Git(db);
-                ObjectReader reader = git.getRepository().newObjectReader()) {
+        try (Git git = new Git(db)) {
             File repoDir = git.getRepository().getDirectory().getParentFile();
             File fileToChange = new File(repoDir, "changed.txt");
             File fileRemainUnchanged = new File(repoDir, "unchanged.txt");
@@ -231,9 +234,9 @@ public class DiffCalculatorTest extends BaseCalculatorTest {
             DiffCalculator calculator = DiffCalculator.builder()
                     .diffAlgorithm(new HistogramDiff())
                     .build();
-            List<DiffEntryWrapper> wrappers = Whitebox.<List<DiffEntryWrapper>>invokeMethod(
-                    calculator, "doCalculateIndexedDiff",
-                    oldCommit, reader, git, repoDir);
+            // the same revisions leave only the staged codes to diff
+            List<DiffEntryWrapper> wrappers = calculator.calculateDiff(
+                    repoDir, oldCommit.name(), oldCommit.name(), true);
 
             Assert.assertEquals(1, wrappers.size());
 
@@ -257,8 +260,7 @@ public class DiffCalculatorTest extends BaseCalculatorTest {
 
     @Test
     public void testDoCalculateIndexedDiffWhenFileAdded() throws Exception {
-        try (Git git = new Git(db);
-                ObjectReader reader = git.getRepository().newObjectReader()) {
+        try (Git git = new Git(db)) {
             File repoDir = git.getRepository().getDirectory().getParentFile();
             File fileToAdd = new File(repoDir, "added.txt");
             File fileRemainUnchanged = new File(repoDir, "unchanged.txt");
@@ -274,9 +276,9 @@ public class DiffCalculatorTest extends BaseCalculatorTest {
             DiffCalculator calculator = DiffCalculator.builder()
                     .diffAlgorithm(new HistogramDiff())
                     .build();
-            List<DiffEntryWrapper> wrappers = Whitebox.<List<DiffEntryWrapper>>invokeMethod(
-                    calculator, "doCalculateIndexedDiff",
-                    oldCommit, reader, git, repoDir);
+            // the same revisions leave only the staged codes to diff
+            List<DiffEntryWrapper> wrappers = calculator.calculateDiff(
+                    repoDir, oldCommit.name(), oldCommit.name(), true);
 
             Assert.assertEquals(1, wrappers.size());
 
@@ -294,8 +296,604 @@ public class DiffCalculatorTest extends BaseCalculatorTest {
 
     }
 
+    @Test
+    public void testDoCalculateIndexedDiffIgnoresWorkingTree() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File stagedFile = new File(repoDir, "dir/staged.txt");
+            File unstagedFile = new File(repoDir, "dir/unstaged.txt");
+            File removedFile = new File(repoDir, "removed.txt");
+            stagedFile.getParentFile().mkdirs();
+            File untrackedFile = new File(repoDir, "untracked.txt");
+            writeStringToFile(stagedFile, "first line\n");
+            writeStringToFile(unstagedFile, "first line\n");
+            writeStringToFile(removedFile, "first line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+
+            writeStringToFile(stagedFile, "first line\nsecond line\n");
+            git.add().addFilepattern("dir/staged.txt").call();
+            writeStringToFile(unstagedFile, "first line\nsecond line\n");
+            git.rm().addFilepattern(removedFile.getName()).call();
+            writeStringToFile(untrackedFile, "first line\n");
+
+            DiffCalculator calculator = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build();
+            // the same revisions leave only the staged codes to diff
+            List<DiffEntryWrapper> wrappers = calculator.calculateDiff(
+                    repoDir, oldCommit.name(), oldCommit.name(), true);
+
+            Assert.assertEquals(1, wrappers.size());
+            Assert.assertEquals("dir/staged.txt", wrappers.get(0).getNewPath());
+            Assert.assertEquals(Arrays.asList(new Edit(1, 1, 1, 2)), wrappers.get(0).getEditList());
+        }
+
+    }
+
+    @Test
+    public void testDoCalculateIndexedDiffWithPackedBlobs() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            List<String> fileNames = Arrays.asList("c.txt", "a.txt", "b.txt");
+            for (String fileName : fileNames) {
+                writeStringToFile(new File(repoDir, fileName), fileName + " first line\n");
+            }
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+            git.gc().call();
+
+            for (String fileName : fileNames) {
+                writeStringToFile(new File(repoDir, fileName), fileName + " first line\n" + fileName + " second line\n");
+            }
+            writeStringToFile(new File(repoDir, "d.txt"), "d.txt first line\n");
+            git.add().addFilepattern(".").call();
+
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build()
+                    .calculateDiff(repoDir, oldCommit.name(), oldCommit.name(), true);
+
+            Assert.assertEquals(4, wrappers.size());
+            for (DiffEntryWrapper wrapper : wrappers) {
+                List<Edit> expected = "d.txt".equals(wrapper.getNewPath())
+                        ? Arrays.asList(new Edit(0, 0, 0, 1))
+                        : Arrays.asList(new Edit(1, 1, 1, 2));
+                Assert.assertEquals(wrapper.getNewPath(), expected, wrapper.getEditList());
+            }
+        }
+    }
+
+    @Test
+    public void testCalculateWorkingTreeDiff() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File unstagedFile = new File(repoDir, "a.txt");
+            File stagedFile = new File(repoDir, "b.txt");
+            File unchangedFile = new File(repoDir, "c.txt");
+            File untrackedFile = new File(repoDir, "untracked/d.txt");
+            writeStringToFile(unstagedFile, "first line\n");
+            writeStringToFile(stagedFile, "first line\n");
+            writeStringToFile(unchangedFile, "first line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+
+            writeStringToFile(unstagedFile, "first line\nsecond line\n");
+            writeStringToFile(stagedFile, "first line\nsecond line\n");
+            git.add().addFilepattern(stagedFile.getName()).call();
+            writeStringToFile(stagedFile, "first line\nsecond line\nthird line\n");
+            untrackedFile.getParentFile().mkdirs();
+            writeStringToFile(untrackedFile, "first line\n");
+
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build()
+                    .calculateWorkingTreeDiff(repoDir, oldCommit.name());
+
+            Assert.assertEquals(2, wrappers.size());
+            Assert.assertEquals(unstagedFile.getName(), wrappers.get(0).getNewPath());
+            Assert.assertEquals(Arrays.asList(new Edit(1, 1, 1, 2)), wrappers.get(0).getEditList());
+            Assert.assertEquals(stagedFile.getName(), wrappers.get(1).getNewPath());
+            Assert.assertEquals(Arrays.asList(new Edit(1, 1, 1, 3)), wrappers.get(1).getEditList());
+        }
+
+    }
+
+    @Test
+    public void testCalculateDiffInParallel() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            int fileCount = 20;
+            for (int i = 0; i < fileCount; i++) {
+                writeStringToFile(new File(repoDir, "file" + i + ".txt"), "first line\nsecond line\n");
+            }
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+
+            for (int i = 0; i < fileCount; i++) {
+                StringBuilder content = new StringBuilder("first line\nsecond line\n");
+                for (int j = 0; j < i; j++) {
+                    content.append("added line ").append(j).append("\n");
+                }
+                writeStringToFile(new File(repoDir, "file" + i + ".txt"), content.toString());
+            }
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git);
+
+            List<DiffEntryWrapper> sequentialWrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build()
+                    .calculateDiff(repoDir, oldCommit.name(), newCommit.name(), false);
+
+            List<DiffEntryWrapper> parallelWrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .parallelism(4)
+                    .build()
+                    .calculateDiff(repoDir, oldCommit.name(), newCommit.name(), false);
+
+            Assert.assertEquals(fileCount - 1, parallelWrappers.size());
+            Assert.assertEquals(sequentialWrappers.size(), parallelWrappers.size());
+            for (int i = 0; i < sequentialWrappers.size(); i++) {
+                Assert.assertEquals(sequentialWrappers.get(i).getNewPath(), parallelWrappers.get(i).getNewPath());
+                Assert.assertEquals(sequentialWrappers.get(i).getEditList(), parallelWrappers.get(i).getEditList());
+            }
+        }
+    }
+
+    @Test
+    public void testCalculateDiffWithEditListCache() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File fileToChange = new File(repoDir, "changed.txt");
+            writeStringToFile(fileToChange, "first line\nsecond line\n");
+            git.add().addFilepattern(fileToChange.getName()).call();
+            RevCommit oldCommit = doCommit(git);
+
+            writeStringToFile(fileToChange, "first line\nsecond line changed\nthird line\n");
+            git.add().addFilepattern(fileToChange.getName()).call();
+            RevCommit newCommit = doCommit(git);
+
+            DiffCalculator calculator = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .editListCacheEnabled(true)
+                    .build();
+
+            List<DiffEntryWrapper> wrappers = calculator.calculateDiff(
+                    repoDir, oldCommit.name(), newCommit.name(), false);
+
+            EditListCache cache = EditListCache.open(git.getRepository(), EditListCache.DEFAULT_MAX_ENTRIES);
+            Assert.assertTrue(cache.getFile().isFile());
+            Assert.assertEquals(1, cache.size());
+
+            List<DiffEntryWrapper> cachedWrappers = calculator.calculateDiff(
+                    repoDir, oldCommit.name(), newCommit.name(), false);
+
+            Assert.assertEquals(1, cachedWrappers.size());
+            Assert.assertEquals(wrappers.get(0).getEditList(), cachedWrappers.get(0).getEditList());
+        }
+    }
+
+    @Test
+    public void testCalculateDiffWithConsumer() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File committedFile = new File(repoDir, "committed.txt");
+            File stagedFile = new File(repoDir, "staged.txt");
+            writeStringToFile(committedFile, "first line\n");
+            writeStringToFile(stagedFile, "first line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+
+            writeStringToFile(committedFile, "first line\nsecond line\n");
+            git.add().addFilepattern(committedFile.getName()).call();
+            RevCommit newCommit = doCommit(git);
+
+            writeStringToFile(stagedFile, "first line\nsecond line\n");
+            git.add().addFilepattern(stagedFile.getName()).call();
+
+            List<String> pathList = new ArrayList<>();
+            DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build()
+                    .calculateDiff(repoDir, oldCommit.name(), newCommit.name(), true,
+                            wrapper -> pathList.add(wrapper.getNewPath()));
+
+            Assert.assertEquals(Arrays.asList(stagedFile.getName(), committedFile.getName()), pathList);
+        }
+    }
+
+    @Test
+    public void testCalculateDiffWithPathFilter() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File dir = new File(repoDir, "dir");
+            dir.mkdirs();
+            File javaFile = new File(dir, "Changed.java");
+            File jsonFile = new File(dir, "changed.json");
+            File stagedJsonFile = new File(repoDir, "staged.json");
+            writeStringToFile(javaFile, "first line\n");
+            writeStringToFile(jsonFile, "first line\n");
+            writeStringToFile(stagedJsonFile, "first line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+
+            writeStringToFile(javaFile, "first line\nsecond line\n");
+            writeStringToFile(jsonFile, "first line\nsecond line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git);
+
+            writeStringToFile(stagedJsonFile, "first line\nsecond line\n");
+            git.add().addFilepattern(stagedJsonFile.getName()).call();
+
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .pathFilter(path -> path.endsWith(".java"))
+                    .build()
+                    .calculateDiff(repoDir, oldCommit.name(), newCommit.name(), true);
+
+            Assert.assertEquals(1, wrappers.size());
+            Assert.assertEquals("dir/Changed.java", wrappers.get(0).getNewPath());
+        }
+    }
+
+    @Test
+    public void testCalculateDiffWithPathFilterWhenFileMoved() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File excludedDir = new File(repoDir, "excluded");
+            File includedDir = new File(repoDir, "included");
+            excludedDir.mkdirs();
+            includedDir.mkdirs();
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                content.append("line ").append(i).append("\n");
+            }
+            writeStringToFile(new File(excludedDir, "MovedIn.java"), content.toString());
+            writeStringToFile(new File(includedDir, "MovedOut.java"), content.toString().replace("line", "row"));
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+
+            git.rm().addFilepattern("excluded/MovedIn.java").addFilepattern("included/MovedOut.java").call();
+            excludedDir.mkdirs();
+            includedDir.mkdirs();
+            writeStringToFile(new File(includedDir, "MovedIn.java"), content.append("last line\n").toString());
+            writeStringToFile(new File(excludedDir, "MovedOut.java"), content.toString().replace("line", "row"));
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git);
+
+            DiffCalculator calculator = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .pathFilter(path -> path.startsWith("included/"))
+                    .build();
+
+            List<DiffEntryWrapper> wrappers = calculator
+                    .calculateDiff(repoDir, oldCommit.name(), newCommit.name(), false);
+
+            Assert.assertEquals(1, wrappers.size());
+            DiffEntryWrapper wrapper = wrappers.get(0);
+            Assert.assertEquals(ChangeType.RENAME, wrapper.getDiffEntry().getChangeType());
+            Assert.assertEquals("excluded/MovedIn.java", wrapper.getDiffEntry().getOldPath());
+            Assert.assertEquals("included/MovedIn.java", wrapper.getNewPath());
+            Assert.assertEquals(Arrays.asList(new Edit(20, 20, 20, 21)), wrapper.getEditList());
+
+            List<DiffEntryWrapper> multiBaseWrappers = calculator
+                    .calculateMultiBaseDiff(repoDir, Arrays.asList(oldCommit.name()), newCommit.name())
+                    .get(oldCommit.name());
+
+            Assert.assertEquals(1, multiBaseWrappers.size());
+            Assert.assertEquals(ChangeType.RENAME, multiBaseWrappers.get(0).getDiffEntry().getChangeType());
+            Assert.assertEquals(wrapper.getEditList(), multiBaseWrappers.get(0).getEditList());
+        }
+    }
+
+    @Test
+    public void testCalculateDiffWithPhaseListener() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File firstFile = new File(repoDir, "first.txt");
+            File secondFile = new File(repoDir, "second.txt");
+            File stagedFile = new File(repoDir, "staged.txt");
+            writeStringToFile(firstFile, "first line\n");
+            writeStringToFile(secondFile, "first line\n");
+            writeStringToFile(stagedFile, "first line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+
+            writeStringToFile(firstFile, "first line\nsecond line\n");
+            writeStringToFile(secondFile, "first line\nsecond line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git);
+
+            writeStringToFile(stagedFile, "first line\nsecond line\n");
+            git.add().addFilepattern(stagedFile.getName()).call();
+
+            DiffProfile profile = new DiffProfile();
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .phaseListener(profile)
+                    .build()
+                    .calculateDiff(repoDir, oldCommit.name(), newCommit.name(), true);
+
+            Assert.assertEquals(3, wrappers.size());
+            Assert.assertEquals(1, profile.getFileCount(DiffPhase.INDEX_SCAN));
+            Assert.assertEquals(2, profile.getFileCount(DiffPhase.TREE_DIFF));
+            Assert.assertEquals(2, profile.getFileCount(DiffPhase.RENAME_DETECTION));
+            Assert.assertEquals(3, profile.getFileCount(DiffPhase.BLOB_LOADING));
+            Assert.assertEquals(3, profile.getFileCount(DiffPhase.EDIT_CALCULATION));
+            // each file is loaded with 11 bytes on the old side and 23 bytes on the new side
+            Assert.assertEquals(3 * (11 + 23), profile.getByteCount(DiffPhase.BLOB_LOADING));
+            Assert.assertTrue(profile.getElapsedNanos(DiffPhase.EDIT_CALCULATION) > 0);
+            Assert.assertTrue(profile.format().contains(DiffPhase.TREE_DIFF.getLabel()));
+        }
+    }
+
+    @Test
+    public void testCalculateDiffWithFileTimeout() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File file = new File(repoDir, "changed.txt");
+            writeStringToFile(file, "first line\nsecond line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+
+            writeStringToFile(file, "first line changed\nsecond line\nthird line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git);
+
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new EndlessDiff())
+                    .fileTimeoutMillis(50)
+                    .build()
+                    .calculateDiff(repoDir, oldCommit.name(), newCommit.name(), false);
+
+            Assert.assertEquals(1, wrappers.size());
+            Assert.assertEquals(Arrays.asList(new Edit(0, 2, 0, 3)), wrappers.get(0).getEditList());
+        }
+    }
+
+    @Test
+    public void testCalculateDiffWithTotalTimeout() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File firstFile = new File(repoDir, "first.txt");
+            File secondFile = new File(repoDir, "second.txt");
+            writeStringToFile(firstFile, "first line\n");
+            writeStringToFile(secondFile, "first line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+
+            writeStringToFile(firstFile, "first line changed\n");
+            writeStringToFile(secondFile, "first line changed\nsecond line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git);
+
+            long start = System.currentTimeMillis();
+            List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                    .diffAlgorithm(new EndlessDiff())
+                    .totalTimeoutMillis(50)
+                    .build()
+                    .calculateDiff(repoDir, oldCommit.name(), newCommit.name(), false);
+
+            // the second file is given up without diffing, since the deadline is already passed by the first one
+            Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+            Assert.assertEquals(2, wrappers.size());
+            Assert.assertEquals(Arrays.asList(new Edit(0, 1, 0, 1)), wrappers.get(0).getEditList());
+            Assert.assertEquals(Arrays.asList(new Edit(0, 1, 0, 2)), wrappers.get(1).getEditList());
+        }
+    }
+
+    @Test
+    public void testCalculateDiffAsync() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File file = new File(repoDir, "changed.txt");
+            writeStringToFile(file, "first line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+
+            writeStringToFile(file, "first line\nsecond line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git);
+
+            DiffCalculator calculator = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build();
+            List<DiffEntryWrapper> wrappers = calculator
+                    .calculateDiffAsync(repoDir, oldCommit.name(), newCommit.name(), false, executor)
+                    .get();
+
+            Assert.assertEquals(1, wrappers.size());
+            Assert.assertEquals(Arrays.asList(new Edit(1, 1, 1, 2)), wrappers.get(0).getEditList());
+
+            CompletableFuture<List<DiffEntryWrapper>> failedFuture = calculator
+                    .calculateDiffAsync(repoDir, "unknown-rev", newCommit.name(), false, executor);
+            try {
+                failedFuture.get();
+                Assert.fail("the diff with an unknown revision should fail");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCalculateIncrementalDiff() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File modifiedFile = new File(repoDir, "modified.txt");
+            File touchedFile = new File(repoDir, "touched.txt");
+            File movedFile = new File(repoDir, "moved.txt");
+            File renamedFile = new File(repoDir, "renamed.txt");
+            StringBuilder movedContent = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                movedContent.append("line ").append(i).append("\n");
+            }
+            writeStringToFile(modifiedFile, "first line\n");
+            writeStringToFile(touchedFile, "first line\n");
+            writeStringToFile(movedFile, movedContent.toString());
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+
+            writeStringToFile(modifiedFile, "first line\nsecond line\n");
+            writeStringToFile(touchedFile, "first line\nsecond line\n");
+            movedFile.delete();
+            RevCommit prevNewCommit = doCommit(git);
+
+            writeStringToFile(touchedFile, "first line\nsecond line\nthird line\n");
+            writeStringToFile(renamedFile, movedContent.toString());
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git);
+
+            DiffCalculator calculator = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build();
+
+            List<DiffEntryWrapper> prevWrappers = calculator
+                    .calculateDiff(repoDir, oldCommit.name(), prevNewCommit.name(), false);
+            Assert.assertEquals(3, prevWrappers.size());
+
+            List<DiffEntryWrapper> wrappers = calculator.calculateIncrementalDiff(
+                    repoDir, oldCommit.name(), prevNewCommit.name(), newCommit.name(), prevWrappers);
+
+            Assert.assertEquals(3, wrappers.size());
+
+            Assert.assertEquals(modifiedFile.getName(), wrappers.get(0).getNewPath());
+            Assert.assertTrue(prevWrappers.contains(wrappers.get(0)));
+
+            Assert.assertEquals(renamedFile.getName(), wrappers.get(1).getNewPath());
+            Assert.assertEquals(ChangeType.RENAME, wrappers.get(1).getDiffEntry().getChangeType());
+            Assert.assertEquals(movedFile.getName(), wrappers.get(1).getDiffEntry().getOldPath());
+            Assert.assertTrue(wrappers.get(1).getEditList().isEmpty());
+
+            Assert.assertEquals(touchedFile.getName(), wrappers.get(2).getNewPath());
+            Assert.assertEquals(Arrays.asList(new Edit(1, 1, 1, 3)), wrappers.get(2).getEditList());
+        }
+    }
+
+    @Test
+    public void testCalculateMultiBaseDiff() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File file = new File(repoDir, "file.txt");
+            File addedFile = new File(repoDir, "added.txt");
+            writeStringToFile(file, "first line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit firstCommit = doCommit(git);
+
+            writeStringToFile(file, "first line\nsecond line\n");
+            RevCommit secondCommit = doCommit(git);
+
+            writeStringToFile(file, "first line\nsecond line\nthird line\n");
+            writeStringToFile(addedFile, "first line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git);
+
+            DiffCalculator calculator = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build();
+
+            Map<String, List<DiffEntryWrapper>> wrappersMap = calculator.calculateMultiBaseDiff(
+                    repoDir, Arrays.asList(firstCommit.name(), secondCommit.name(), newCommit.name()), newCommit.name());
+
+            Assert.assertEquals(Arrays.asList(firstCommit.name(), secondCommit.name(), newCommit.name()),
+                    new ArrayList<>(wrappersMap.keySet()));
+            Assert.assertTrue(wrappersMap.get(newCommit.name()).isEmpty());
+
+            for (RevCommit oldCommit : Arrays.asList(firstCommit, secondCommit)) {
+                List<DiffEntryWrapper> expected = calculator.calculateDiff(
+                        repoDir, oldCommit.name(), newCommit.name(), false);
+                List<DiffEntryWrapper> actual = wrappersMap.get(oldCommit.name());
+                Assert.assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    Assert.assertEquals(expected.get(i).getDiffEntry().toString(), actual.get(i).getDiffEntry().toString());
+                    Assert.assertEquals(expected.get(i).getEditList(), actual.get(i).getEditList());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCalculateMultiBaseDiffWithSameCommit() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            File changedFile = new File(repoDir, "changed.txt");
+            writeStringToFile(changedFile, "first line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit oldCommit = doCommit(git);
+            git.tag().setName("v1").setObjectId(oldCommit).call();
+
+            writeStringToFile(changedFile, "first line\nsecond line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit newCommit = doCommit(git);
+
+            DiffCalculator calculator = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build();
+            Map<String, List<DiffEntryWrapper>> wrappersMap = calculator.calculateMultiBaseDiff(
+                    repoDir, Arrays.asList("v1", oldCommit.name()), newCommit.name());
+
+            Assert.assertEquals(Arrays.asList("v1", oldCommit.name()), new ArrayList<>(wrappersMap.keySet()));
+            Assert.assertSame(wrappersMap.get("v1"), wrappersMap.get(oldCommit.name()));
+            Assert.assertEquals(1, wrappersMap.get("v1").size());
+            Assert.assertEquals("changed.txt", wrappersMap.get("v1").get(0).getNewPath());
+        }
+    }
+
+    @Test
+    public void testCalculateMultiBaseDiffWithDeletedFiles() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            writeStringToFile(new File(repoDir, "first.txt"), "first line\n");
+            writeStringToFile(new File(repoDir, "second.txt"), "first line\nsecond line\n");
+            writeStringToFile(new File(repoDir, "third.txt"), "third line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit firstCommit = doCommit(git);
+
+            writeStringToFile(new File(repoDir, "third.txt"), "third line\nfourth line\n");
+            git.add().addFilepattern(".").call();
+            RevCommit secondCommit = doCommit(git);
+
+            git.rm().addFilepattern("first.txt").addFilepattern("second.txt").call();
+            RevCommit newCommit = doCommit(git);
+
+            DiffCalculator calculator = DiffCalculator.builder()
+                    .diffAlgorithm(new HistogramDiff())
+                    .build();
+            Map<String, List<DiffEntryWrapper>> wrappersMap = calculator.calculateMultiBaseDiff(
+                    repoDir, Arrays.asList(firstCommit.name(), secondCommit.name()), newCommit.name());
+
+            List<DiffEntryWrapper> wrappers = wrappersMap.get(secondCommit.name());
+            Assert.assertEquals(2, wrappers.size());
+            for (DiffEntryWrapper wrapper : wrappers) {
+                Assert.assertTrue(wrapper.isDeleted());
+                Assert.assertEquals(1, wrapper.getEditList().size());
+                Assert.assertEquals(0, wrapper.getEditList().get(0).getEndB());
+            }
+            Assert.assertEquals(1, wrappers.get(0).getEditList().get(0).getEndA());
+            Assert.assertEquals(2, wrappers.get(1).getEditList().get(0).getEndA());
+            Assert.assertEquals(3, wrappersMap.get(firstCommit.name()).size());
+        }
+    }
+
     private RevCommit doCommit(Git git) throws Exception {
         return super.doCommit(git, DEFAULT_USER, DEFAULT_USER, "new commit");
     }
 
+    /**
+     * a diff algorithm comparing the lines forever, which only stops when the comparator throws
+     */
+    private static class EndlessDiff extends DiffAlgorithm {
+
+        @Override
+        public <S extends Sequence> EditList diffNonCommon(SequenceComparator<? super S> cmp, S a, S b) {
+            while (true) {
+                cmp.equals(a, 0, b, 0);
+            }
+        }
+
+    }
+
 }
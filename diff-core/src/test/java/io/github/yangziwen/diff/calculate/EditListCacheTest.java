@@ -0,0 +1,113 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.HistogramDiff;
+import org.eclipse.jgit.diff.MyersDiff;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EditListCacheTest {
+
+    private static final ObjectId OLD_ID = ObjectId.fromString("1111111111111111111111111111111111111111");
+
+    private static final ObjectId NEW_ID = ObjectId.fromString("2222222222222222222222222222222222222222");
+
+    private static final ObjectId OTHER_ID = ObjectId.fromString("3333333333333333333333333333333333333333");
+
+    private static final int THRESHOLD = DiffHelper.DEFAULT_BIG_FILE_THRESHOLD;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGetAndPut() {
+        EditListCache cache = new EditListCache(new File(folder.getRoot(), "edit-list.cache"), 10);
+        HistogramDiff algorithm = new HistogramDiff();
+        List<Edit> editList = Arrays.asList(new Edit(1, 2, 1, 3), new Edit(5, 5, 6, 8));
+
+        cache.put(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD, editList);
+
+        Assert.assertEquals(editList, cache.get(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD));
+        Assert.assertNull(cache.get(OLD_ID, NEW_ID, algorithm, RawTextComparator.WS_IGNORE_ALL, THRESHOLD));
+        Assert.assertNull(cache.get(OLD_ID, NEW_ID, MyersDiff.INSTANCE, RawTextComparator.DEFAULT, THRESHOLD));
+        Assert.assertNull(cache.get(NEW_ID, OLD_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD));
+        Assert.assertNull(cache.get(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD / 2));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        EditListCache cache = new EditListCache(new File(folder.getRoot(), "edit-list.cache"), 2);
+        HistogramDiff algorithm = new HistogramDiff();
+        List<Edit> editList = Arrays.asList(new Edit(0, 1, 0, 1));
+
+        cache.put(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD, editList);
+        cache.put(OLD_ID, OTHER_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD, editList);
+        cache.get(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD);
+        cache.put(NEW_ID, OTHER_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD, editList);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD));
+        Assert.assertNull(cache.get(OLD_ID, OTHER_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD));
+        Assert.assertNotNull(cache.get(NEW_ID, OTHER_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD));
+    }
+
+    @Test
+    public void testGetWithAdaptiveAlgorithmSettings() {
+        EditListCache cache = new EditListCache(new File(folder.getRoot(), "edit-list.cache"), 10);
+        AdaptiveDiffAlgorithm algorithm = new AdaptiveDiffAlgorithm();
+        List<Edit> editList = Arrays.asList(new Edit(0, 1, 0, 1));
+
+        cache.put(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD, editList);
+        Assert.assertEquals(editList, cache.get(OLD_ID, NEW_ID, new AdaptiveDiffAlgorithm(), RawTextComparator.DEFAULT, THRESHOLD));
+
+        AdaptiveDiffAlgorithm otherAlgorithm = new AdaptiveDiffAlgorithm();
+        otherAlgorithm.setMaxLines(10);
+        Assert.assertNull(cache.get(OLD_ID, NEW_ID, otherAlgorithm, RawTextComparator.DEFAULT, THRESHOLD));
+    }
+
+    @Test
+    public void testSetMaxEntries() {
+        EditListCache cache = new EditListCache(new File(folder.getRoot(), "edit-list.cache"), 10);
+        HistogramDiff algorithm = new HistogramDiff();
+        List<Edit> editList = Arrays.asList(new Edit(0, 1, 0, 1));
+
+        cache.put(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD, editList);
+        cache.put(OLD_ID, OTHER_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD, editList);
+        cache.put(NEW_ID, OTHER_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD, editList);
+        cache.get(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD);
+        cache.setMaxEntries(2);
+
+        Assert.assertEquals(2, cache.getMaxEntries());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD));
+        Assert.assertNull(cache.get(OLD_ID, OTHER_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD));
+
+        cache.put(OLD_ID, OTHER_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD, editList);
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testFlushAndReload() throws Exception {
+        File file = new File(new File(folder.getRoot(), "diff-check"), "edit-list.cache");
+        HistogramDiff algorithm = new HistogramDiff();
+        List<Edit> editList = Arrays.asList(new Edit(1, 2, 1, 3));
+
+        EditListCache cache = new EditListCache(file, 10);
+        cache.put(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD, editList);
+        cache.flush();
+
+        Assert.assertTrue(file.isFile());
+
+        EditListCache reloadedCache = new EditListCache(file, 10);
+        Assert.assertEquals(editList, reloadedCache.get(OLD_ID, NEW_ID, algorithm, RawTextComparator.DEFAULT, THRESHOLD));
+    }
+
+}
@@ -0,0 +1,38 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.jgit.diff.Edit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LineMappingTest {
+
+    // old line 2 is replaced by new lines 2-3, old lines 6-7 are deleted, new lines 9-11 are inserted before old line 9
+    private static final LineMapping LINE_MAPPING = LineMapping.of(Arrays.asList(
+            new Edit(1, 2, 1, 3),
+            new Edit(5, 7, 6, 6),
+            new Edit(8, 8, 7, 10)));
+
+    @Test
+    public void testTranslate() {
+        Assert.assertEquals(1, LINE_MAPPING.translate(1));
+        Assert.assertEquals(LineMapping.DELETED, LINE_MAPPING.translate(2));
+        Assert.assertEquals(4, LINE_MAPPING.translate(3));
+        Assert.assertEquals(6, LINE_MAPPING.translate(5));
+        Assert.assertEquals(LineMapping.DELETED, LINE_MAPPING.translate(6));
+        Assert.assertEquals(LineMapping.DELETED, LINE_MAPPING.translate(7));
+        Assert.assertEquals(7, LINE_MAPPING.translate(8));
+        Assert.assertEquals(11, LINE_MAPPING.translate(9));
+        Assert.assertEquals(12, LINE_MAPPING.translate(10));
+    }
+
+    @Test
+    public void testTranslateWithoutEdits() {
+        LineMapping lineMapping = LineMapping.of(Collections.emptyList());
+        Assert.assertEquals(1, lineMapping.translate(1));
+        Assert.assertEquals(100, lineMapping.translate(100));
+    }
+
+}
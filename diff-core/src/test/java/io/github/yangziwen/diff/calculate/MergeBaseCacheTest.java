@@ -0,0 +1,49 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.File;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MergeBaseCacheTest {
+
+    private static final ObjectId COMMIT_ID = ObjectId.fromString("1111111111111111111111111111111111111111");
+
+    private static final ObjectId OTHER_COMMIT_ID = ObjectId.fromString("2222222222222222222222222222222222222222");
+
+    private static final ObjectId MERGE_BASE_ID = ObjectId.fromString("3333333333333333333333333333333333333333");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGetAndPut() {
+        MergeBaseCache cache = new MergeBaseCache(new File(folder.getRoot(), "merge-base.cache"), 10);
+
+        cache.put(COMMIT_ID, OTHER_COMMIT_ID, MERGE_BASE_ID.name());
+        cache.put(COMMIT_ID, MERGE_BASE_ID, "");
+
+        Assert.assertEquals(MERGE_BASE_ID.name(), cache.get(COMMIT_ID, OTHER_COMMIT_ID));
+        Assert.assertEquals(MERGE_BASE_ID.name(), cache.get(OTHER_COMMIT_ID, COMMIT_ID));
+        Assert.assertEquals("", cache.get(MERGE_BASE_ID, COMMIT_ID));
+        Assert.assertNull(cache.get(OTHER_COMMIT_ID, MERGE_BASE_ID));
+    }
+
+    @Test
+    public void testFlushAndReload() throws Exception {
+        File file = new File(new File(folder.getRoot(), "diff-check"), "merge-base.cache");
+
+        MergeBaseCache cache = new MergeBaseCache(file, 10);
+        cache.put(COMMIT_ID, OTHER_COMMIT_ID, MERGE_BASE_ID.name());
+        cache.flush();
+
+        Assert.assertTrue(file.isFile());
+
+        MergeBaseCache reloadedCache = new MergeBaseCache(file, 10);
+        Assert.assertEquals(MERGE_BASE_ID.name(), reloadedCache.get(OTHER_COMMIT_ID, COMMIT_ID));
+    }
+
+}
@@ -1,18 +1,38 @@
 package io.github.yangziwen.diff.calculate;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.HistogramDiff;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.junit.TestRepository.CommitBuilder;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import io.github.yangziwen.diff.fixture.SyntheticRepository;
+import io.github.yangziwen.diff.fixture.SyntheticRepositoryGenerator;
+
 @RunWith(PowerMockRunner.class)
 public class MergeBaseCalculatorTest extends BaseCalculatorTest {
 
@@ -21,6 +41,9 @@ public class MergeBaseCalculatorTest extends BaseCalculatorTest {
             .email("test@test.com")
             .build();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Before
     public void before() throws Exception {
         MockitoAnnotations.initMocks(this);
@@ -64,6 +87,177 @@ public class MergeBaseCalculatorTest extends BaseCalculatorTest {
 
     }
 
+    @Test
+    public void testCalculateMergeBaseAndDiffWithSession() throws Exception {
+
+        try (Git git = new Git(db)) {
+
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+
+            File file = new File(repoDir, "file.txt");
+            writeStringToFile(file, "hello\n");
+            git.add()
+                .addFilepattern(file.getName())
+                .call();
+            RevCommit baseCommit = doCommit(git);
+
+            writeStringToFile(file, "hello\nworld\n");
+            git.add()
+                .addFilepattern(file.getName())
+                .call();
+            RevCommit commit1 = doCommit(git);
+
+            git.reset().setMode(ResetType.HARD).setRef(baseCommit.name()).call();
+
+            writeStringToFile(file, "hello code\n");
+            git.add()
+                .addFilepattern(file.getName())
+                .call();
+            RevCommit commit2 = doCommit(git);
+
+            try (RepositorySession session = RepositorySession.open(repoDir)) {
+
+                String mergeBase = new MergeBaseCalculator()
+                        .calculateMergeBase(session, commit1.name(), commit2.name());
+
+                Assert.assertEquals(baseCommit.name(), mergeBase);
+
+                List<DiffEntryWrapper> wrappers = DiffCalculator.builder()
+                        .diffAlgorithm(new HistogramDiff())
+                        .build()
+                        .calculateDiff(session, mergeBase, commit1.name(), false);
+
+                Assert.assertEquals(1, wrappers.size());
+                Assert.assertEquals(1, wrappers.get(0).getEditList().size());
+                Assert.assertEquals(new Edit(1, 1, 1, 2), wrappers.get(0).getEditList().get(0));
+            }
+        }
+
+    }
+
+    @Test
+    public void testCalculateMergeBases() throws Exception {
+
+        SyntheticRepository repository = SyntheticRepositoryGenerator.builder()
+                .fileCount(20)
+                .historyDepth(20)
+                .branchDepth(5)
+                .checkout(false)
+                .build()
+                .generate(folder.newFolder());
+
+        List<String> refs = new ArrayList<>();
+        refs.addAll(repository.getBranchCommits());
+        refs.addAll(repository.getCommits());
+        // the commits are queried in a shuffled order, so that the target walk is not only extended in the date order
+        Collections.shuffle(refs, new Random(0));
+
+        MergeBaseCalculator calculator = new MergeBaseCalculator();
+        Map<String, String> mergeBases = calculator.calculateMergeBases(
+                repository.getDirectory(), refs, repository.getLastCommit());
+
+        Assert.assertEquals(refs, new ArrayList<>(mergeBases.keySet()));
+        for (String ref : refs) {
+            Assert.assertEquals(
+                    calculator.calculateMergeBase(repository.getDirectory(), ref, repository.getLastCommit()),
+                    mergeBases.get(ref));
+        }
+        Assert.assertEquals(repository.getCommits().get(15), mergeBases.get(repository.getBranchCommits().get(4)));
+        Assert.assertEquals(repository.getCommits().get(3), mergeBases.get(repository.getCommits().get(3)));
+    }
+
+    @Test
+    public void testCalculateMergeBaseWithCache() throws Exception {
+
+        try (Git git = new Git(db)) {
+
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+
+            File file = new File(repoDir, "file.txt");
+            writeStringToFile(file, "hello\n");
+            git.add()
+                .addFilepattern(file.getName())
+                .call();
+            RevCommit baseCommit = doCommit(git);
+
+            writeStringToFile(file, "hello world\n");
+            RevCommit commit1 = doCommit(git);
+
+            git.reset().setMode(ResetType.HARD).setRef(baseCommit.name()).call();
+
+            writeStringToFile(file, "hello code\n");
+            RevCommit commit2 = doCommit(git);
+
+            MergeBaseCalculator calculator = MergeBaseCalculator.builder()
+                    .mergeBaseCacheEnabled(true)
+                    .build();
+
+            Assert.assertEquals(baseCommit.name(), calculator.calculateMergeBase(repoDir, commit1.name(), commit2.name()));
+
+            MergeBaseCache cache = MergeBaseCache.open(git.getRepository(), MergeBaseCache.DEFAULT_MAX_ENTRIES);
+            Assert.assertTrue(cache.getFile().isFile());
+            Assert.assertEquals(baseCommit.name(), cache.get(commit2, commit1));
+
+            Map<String, String> mergeBases = calculator.calculateMergeBases(
+                    repoDir, Arrays.asList(commit1.name(), baseCommit.name()), commit2.name());
+            Assert.assertEquals(baseCommit.name(), mergeBases.get(commit1.name()));
+            Assert.assertEquals(baseCommit.name(), mergeBases.get(baseCommit.name()));
+            Assert.assertEquals(2, cache.size());
+        }
+
+    }
+
+    @Test
+    public void testCalculateMergeBasesWithClockSkew() throws Exception {
+
+        try (TestRepository<Repository> repository = new TestRepository<>(db)) {
+
+            File repoDir = db.getDirectory().getParentFile();
+            long now = 1600000000000L;
+            long day = TimeUnit.DAYS.toMillis(1);
+
+            RevCommit rootCommit = newCommit(repository, now - 6 * day);
+            RevCommit baseCommit = newCommit(repository, now - 5 * day, rootCommit);
+            // the commit on the target is dated much earlier than its parent
+            RevCommit skewedTargetCommit = newCommit(repository, now - 10 * day, baseCommit);
+            RevCommit targetCommit = newCommit(repository, now, skewedTargetCommit);
+            RevCommit branchCommit = newCommit(repository, now, baseCommit);
+            RevCommit skewedBranchCommit = newCommit(repository, now - 20 * day, branchCommit);
+            RevCommit mergeCommit = newCommit(repository, now, branchCommit, skewedTargetCommit);
+
+            List<String> refs = Arrays.asList(
+                    rootCommit.name(),
+                    branchCommit.name(),
+                    skewedBranchCommit.name(),
+                    mergeCommit.name(),
+                    baseCommit.name(),
+                    skewedTargetCommit.name());
+
+            MergeBaseCalculator calculator = new MergeBaseCalculator();
+            Map<String, String> mergeBases = calculator.calculateMergeBases(repoDir, refs, targetCommit.name());
+
+            for (String ref : refs) {
+                Assert.assertEquals(
+                        calculator.calculateMergeBase(repoDir, ref, targetCommit.name()),
+                        mergeBases.get(ref));
+            }
+            Assert.assertEquals(baseCommit.name(), mergeBases.get(branchCommit.name()));
+            Assert.assertEquals(baseCommit.name(), mergeBases.get(skewedBranchCommit.name()));
+            Assert.assertEquals(skewedTargetCommit.name(), mergeBases.get(mergeCommit.name()));
+        }
+
+    }
+
+    private RevCommit newCommit(TestRepository<Repository> repository, long time, RevCommit... parents) throws Exception {
+        PersonIdent person = new PersonIdent(
+                DEFAULT_USER.getName(), DEFAULT_USER.getEmail(), new Date(time), TimeZone.getTimeZone("UTC"));
+        CommitBuilder builder = repository.commit().author(person).committer(person).message("commit at " + time);
+        for (RevCommit parent : parents) {
+            builder.parent(parent);
+        }
+        return builder.create();
+    }
+
     private RevCommit doCommit(Git git) throws Exception {
         return super.doCommit(git, DEFAULT_USER, DEFAULT_USER, "new commit");
     }
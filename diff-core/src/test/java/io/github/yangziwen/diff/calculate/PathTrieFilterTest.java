@@ -0,0 +1,73 @@
+package io.github.yangziwen.diff.calculate;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PathTrieFilterTest extends BaseCalculatorTest {
+
+    private static final Person DEFAULT_USER = Person.builder()
+            .name("test")
+            .email("test@test.com")
+            .build();
+
+    @Before
+    public void before() throws Exception {
+        setUp();
+    }
+
+    @Test
+    public void testInclude() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            for (String path : Arrays.asList(
+                    "a.txt", "a.txt.bak", "dir/b.txt", "dir/c.txt", "dir2/b.txt", "lib/sub/d.txt", "other/e.txt")) {
+                File file = new File(repoDir, path);
+                file.getParentFile().mkdirs();
+                writeStringToFile(file, path + "\n");
+            }
+            git.add().addFilepattern(".").call();
+            RevCommit commit = doCommit(git, DEFAULT_USER, DEFAULT_USER, "new commit");
+
+            TreeFilter filter = PathTrieFilter.create(Arrays.asList("a.txt", "dir/b.txt", "lib"));
+
+            Assert.assertEquals(Arrays.asList("a.txt", "dir/b.txt", "lib/sub/d.txt"), walk(commit, filter, true));
+            Assert.assertEquals(Arrays.asList("a.txt", "dir", "lib"), walk(commit, filter, false));
+        }
+    }
+
+    @Test
+    public void testIncludeNothing() throws Exception {
+        try (Git git = new Git(db)) {
+            File repoDir = git.getRepository().getDirectory().getParentFile();
+            writeStringToFile(new File(repoDir, "a.txt"), "a\n");
+            git.add().addFilepattern(".").call();
+            RevCommit commit = doCommit(git, DEFAULT_USER, DEFAULT_USER, "new commit");
+
+            Assert.assertTrue(walk(commit, PathTrieFilter.create(new ArrayList<>()), true).isEmpty());
+        }
+    }
+
+    private List<String> walk(RevCommit commit, TreeFilter filter, boolean recursive) throws Exception {
+        List<String> paths = new ArrayList<>();
+        try (TreeWalk treeWalk = new TreeWalk(db)) {
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(recursive);
+            treeWalk.setFilter(filter);
+            while (treeWalk.next()) {
+                paths.add(treeWalk.getPathString());
+            }
+        }
+        return paths;
+    }
+
+}
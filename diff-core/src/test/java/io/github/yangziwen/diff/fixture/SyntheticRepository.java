@@ -0,0 +1,69 @@
+package io.github.yangziwen.diff.fixture;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The synthetic repository
+ * the repository created by the SyntheticRepositoryGenerator
+ *
+ * @author yangziwen
+ */
+@Getter
+@Builder
+public class SyntheticRepository {
+
+    /**
+     * the working tree of the repository
+     */
+    private File directory;
+
+    /**
+     * the commits of the main branch, the oldest first
+     */
+    private List<String> commits;
+
+    /**
+     * the paths of the files in the last commit of the main branch, in sorted order
+     */
+    private List<String> paths;
+
+    /**
+     * the commits of the topic branch, the oldest first
+     */
+    private List<String> branchCommits;
+
+    /**
+     * the paths renamed to by the commits of the main branch
+     */
+    private List<String> renamedPaths;
+
+    /**
+     * the paths changed and staged after the last commit
+     */
+    private List<String> stagedPaths;
+
+    /**
+     * the paths changed in the working tree but not staged
+     */
+    private List<String> unstagedPaths;
+
+    public String getFirstCommit() {
+        return commits.get(0);
+    }
+
+    public String getLastCommit() {
+        return commits.get(commits.size() - 1);
+    }
+
+    public void delete() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+}
@@ -0,0 +1,468 @@
+package io.github.yangziwen.diff.fixture;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The synthetic repository generator
+ * generate a local repository with the configured size, history, renames, binary blobs and staged changes,
+ * the objects are written with the low level api of jgit, and the same seed always generates the same commits,
+ * so that the scaling issues can be reproduced offline by the tests and the benchmarks.
+ * Only the trees of the directories changed by a commit are written again, so that the long histories are cheap to generate
+ *
+ * @author yangziwen
+ */
+@Getter
+@Builder
+public class SyntheticRepositoryGenerator {
+
+    private static final String TOPIC_BRANCH = "topic";
+
+    private static final long BASE_TIME = 1500000000000L;
+
+    @Builder.Default
+    private long seed = 0L;
+
+    @Builder.Default
+    private int fileCount = 10000;
+
+    @Builder.Default
+    private int linesPerFile = 50;
+
+    /**
+     * the max number of files in one directory
+     */
+    @Builder.Default
+    private int filesPerDirectory = 100;
+
+    /**
+     * the number of commits after the initial one on the main branch
+     */
+    @Builder.Default
+    private int historyDepth = 1;
+
+    @Builder.Default
+    private int filesChangedPerCommit = 10;
+
+    /**
+     * the ratio of the changed files which are renamed as well
+     */
+    @Builder.Default
+    private double renameRatio = 0;
+
+    /**
+     * the ratio of the files which are binary blobs
+     */
+    @Builder.Default
+    private double binaryRatio = 0;
+
+    /**
+     * the number of commits of the topic branch, which forks from the main branch the same number of commits before its head
+     */
+    @Builder.Default
+    private int branchDepth = 0;
+
+    @Builder.Default
+    private int stagedFileCount = 0;
+
+    @Builder.Default
+    private int unstagedFileCount = 0;
+
+    /**
+     * whether to write the working tree and the index, otherwise only the objects and the refs are written
+     */
+    @Builder.Default
+    private boolean checkout = true;
+
+    /**
+     * whether to pack the objects after generated
+     */
+    @Builder.Default
+    private boolean packed = false;
+
+    /**
+     * generate the repository
+     *
+     * @param directory     the working tree of the repository to create
+     * @return the generated repository
+     * @throws Exception    throw Exception when failed to generate the repository
+     */
+    public SyntheticRepository generate(File directory) throws Exception {
+        Random random = new Random(seed);
+        try (Git git = Git.init().setDirectory(directory).call();
+                ObjectInserter inserter = git.getRepository().newObjectInserter()) {
+            Repository repository = git.getRepository();
+            Context context = new Context(inserter, random);
+
+            Map<String, FileState> files = new TreeMap<>();
+            for (int i = 0; i < fileCount; i++) {
+                FileState file = new FileState(newPath(i, ""), random.nextLong(), random.nextDouble() < binaryRatio);
+                files.put(file.path, file);
+            }
+
+            TreeNode tree = new TreeNode();
+            for (FileState file : files.values()) {
+                tree.put(file.path, file);
+            }
+
+            List<String> commits = new ArrayList<>();
+            List<String> renamedPaths = new ArrayList<>();
+            Map<String, FileState> forkedFiles = null;
+            TreeNode forkedTree = null;
+            ObjectId head = context.commit(tree, null, "initial commit");
+            commits.add(head.name());
+            for (int i = 1; i <= historyDepth; i++) {
+                if (branchDepth > 0 && i == Math.max(1, historyDepth - branchDepth + 1)) {
+                    forkedFiles = copy(files);
+                    forkedTree = tree.copy(forkedFiles);
+                }
+                renamedPaths.addAll(context.change(files, tree, i));
+                head = context.commit(tree, head, "commit " + i);
+                commits.add(head.name());
+            }
+            updateRef(repository, Constants.R_HEADS + Constants.MASTER, head);
+
+            List<String> branchCommits = new ArrayList<>();
+            if (branchDepth > 0) {
+                int forkIndex = Math.max(0, historyDepth - branchDepth);
+                Map<String, FileState> branchFiles = forkedFiles != null ? forkedFiles : copy(files);
+                TreeNode branchTree = forkedTree != null ? forkedTree : tree.copy(branchFiles);
+                ObjectId branchHead = ObjectId.fromString(commits.get(forkIndex));
+                for (int i = 1; i <= branchDepth; i++) {
+                    context.change(branchFiles, branchTree, historyDepth + i);
+                    branchHead = context.commit(branchTree, branchHead, "topic commit " + i);
+                    branchCommits.add(branchHead.name());
+                }
+                updateRef(repository, Constants.R_HEADS + TOPIC_BRANCH, branchHead);
+            }
+
+            List<String> stagedPaths = new ArrayList<>();
+            List<String> unstagedPaths = new ArrayList<>();
+            if (checkout) {
+                writeWorkingTree(repository, files);
+                List<FileState> fileList = new ArrayList<>(files.values());
+                int changedFileCount = Math.min(stagedFileCount + unstagedFileCount, fileList.size());
+                while (stagedPaths.size() + unstagedPaths.size() < changedFileCount) {
+                    FileState file = fileList.get(random.nextInt(fileList.size()));
+                    if (file.version != file.indexedVersion) {
+                        continue;
+                    }
+                    file.version++;
+                    writeFile(repository, file);
+                    if (stagedPaths.size() < stagedFileCount) {
+                        file.indexedVersion = file.version;
+                        stagedPaths.add(file.path);
+                    } else {
+                        unstagedPaths.add(file.path);
+                    }
+                }
+                writeIndex(repository, context, files);
+            }
+            inserter.flush();
+
+            if (packed) {
+                git.gc().call();
+            }
+
+            return SyntheticRepository.builder()
+                    .directory(directory)
+                    .commits(commits)
+                    .paths(new ArrayList<>(files.keySet()))
+                    .branchCommits(branchCommits)
+                    .renamedPaths(renamedPaths)
+                    .stagedPaths(stagedPaths)
+                    .unstagedPaths(unstagedPaths)
+                    .build();
+        }
+    }
+
+    private String newPath(int index, String suffix) {
+        return "module" + (index / filesPerDirectory / filesPerDirectory)
+                + "/dir" + (index / filesPerDirectory)
+                + "/File" + index + suffix;
+    }
+
+    private Map<String, FileState> copy(Map<String, FileState> files) {
+        Map<String, FileState> copied = new TreeMap<>();
+        for (FileState file : files.values()) {
+            FileState copiedFile = new FileState(file.path, file.seed, file.binary);
+            copiedFile.version = file.version;
+            copiedFile.indexedVersion = file.indexedVersion;
+            copied.put(copiedFile.path, copiedFile);
+        }
+        return copied;
+    }
+
+    private void updateRef(Repository repository, String refName, ObjectId commitId) throws IOException {
+        RefUpdate refUpdate = repository.updateRef(refName);
+        refUpdate.setNewObjectId(commitId);
+        refUpdate.forceUpdate();
+    }
+
+    private void writeWorkingTree(Repository repository, Map<String, FileState> files) throws IOException {
+        for (FileState file : files.values()) {
+            writeFile(repository, file);
+        }
+    }
+
+    private void writeFile(Repository repository, FileState file) throws IOException {
+        File target = new File(repository.getWorkTree(), file.path);
+        target.getParentFile().mkdirs();
+        try (OutputStream out = Files.newOutputStream(target.toPath())) {
+            out.write(file.content(linesPerFile));
+        }
+    }
+
+    private void writeIndex(Repository repository, Context context, Map<String, FileState> files) throws IOException {
+        DirCache index = repository.lockDirCache();
+        try {
+            DirCacheBuilder builder = index.builder();
+            for (FileState file : files.values()) {
+                File target = new File(repository.getWorkTree(), file.path);
+                DirCacheEntry entry = new DirCacheEntry(file.path);
+                entry.setFileMode(FileMode.REGULAR_FILE);
+                if (file.version == file.indexedVersion) {
+                    entry.setObjectId(context.insertBlob(file));
+                    entry.setLength(target.length());
+                    entry.setLastModified(target.lastModified());
+                } else {
+                    // the unstaged files keep the blobs of the last commit, and the stat data not matching the working tree
+                    FileState committed = new FileState(file.path, file.seed, file.binary);
+                    committed.version = file.indexedVersion;
+                    byte[] content = committed.content(linesPerFile);
+                    entry.setObjectId(context.insertBlob(committed));
+                    entry.setLength(content.length);
+                    entry.setLastModified(0L);
+                }
+                builder.add(entry);
+            }
+            builder.commit();
+        } finally {
+            index.unlock();
+        }
+    }
+
+    private class Context {
+
+        private final ObjectInserter inserter;
+
+        private final Random random;
+
+        private int commitCount;
+
+        Context(ObjectInserter inserter, Random random) {
+            this.inserter = inserter;
+            this.random = random;
+        }
+
+        /**
+         * change some random files in both the files and the tree, and return the paths renamed to
+         */
+        List<String> change(Map<String, FileState> files, TreeNode tree, int commitIndex) {
+            List<String> renamedPaths = new ArrayList<>();
+            List<String> paths = new ArrayList<>(files.keySet());
+            for (int i = 0; i < Math.min(filesChangedPerCommit, paths.size()); i++) {
+                FileState file = files.get(paths.get(random.nextInt(paths.size())));
+                if (file == null) {
+                    continue;
+                }
+                file.version++;
+                if (random.nextDouble() < renameRatio) {
+                    files.remove(file.path);
+                    tree.remove(file.path);
+                    file.path = file.path + "_r" + commitIndex;
+                    files.put(file.path, file);
+                    renamedPaths.add(file.path);
+                }
+                tree.put(file.path, file);
+            }
+            return renamedPaths;
+        }
+
+        ObjectId commit(TreeNode tree, ObjectId parent, String message) throws IOException {
+            PersonIdent person = new PersonIdent("synthetic", "synthetic@test.com",
+                    new Date(BASE_TIME + 60000L * commitCount++), TimeZone.getTimeZone("UTC"));
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(tree.write(this));
+            if (parent != null) {
+                commit.setParentId(parent);
+            }
+            commit.setAuthor(person);
+            commit.setCommitter(person);
+            commit.setMessage(message);
+            return inserter.insert(commit);
+        }
+
+        ObjectId insertBlob(FileState file) throws IOException {
+            if (file.blobId == null || file.blobVersion != file.version) {
+                file.blobId = inserter.insert(Constants.OBJ_BLOB, file.content(linesPerFile));
+                file.blobVersion = file.version;
+            }
+            return file.blobId;
+        }
+
+    }
+
+    /**
+     * the directory tree of a branch, which keeps the ids of the written trees,
+     * so that only the directories containing the changed files are written again for the next commit
+     */
+    private static class TreeNode {
+
+        /**
+         * the children keyed by the names, the names of the directories end with a slash to sort as git does
+         */
+        private final Map<String, Object> children = new TreeMap<>();
+
+        private ObjectId treeId;
+
+        void put(String path, FileState file) {
+            treeId = null;
+            int index = path.indexOf('/');
+            if (index < 0) {
+                children.put(path, file);
+                return;
+            }
+            TreeNode child = (TreeNode) children.computeIfAbsent(path.substring(0, index + 1), key -> new TreeNode());
+            child.put(path.substring(index + 1), file);
+        }
+
+        void remove(String path) {
+            treeId = null;
+            int index = path.indexOf('/');
+            if (index < 0) {
+                children.remove(path);
+                return;
+            }
+            String name = path.substring(0, index + 1);
+            TreeNode child = (TreeNode) children.get(name);
+            child.remove(path.substring(index + 1));
+            if (child.children.isEmpty()) {
+                children.remove(name);
+            }
+        }
+
+        ObjectId write(Context context) throws IOException {
+            if (treeId != null) {
+                return treeId;
+            }
+            TreeFormatter formatter = new TreeFormatter();
+            for (Map.Entry<String, Object> entry : children.entrySet()) {
+                String name = entry.getKey();
+                if (entry.getValue() instanceof TreeNode) {
+                    TreeNode child = (TreeNode) entry.getValue();
+                    formatter.append(name.substring(0, name.length() - 1), FileMode.TREE, child.write(context));
+                } else {
+                    FileState file = (FileState) entry.getValue();
+                    formatter.append(name, FileMode.REGULAR_FILE, context.insertBlob(file));
+                    file.indexedVersion = file.version;
+                }
+            }
+            treeId = context.inserter.insert(formatter);
+            return treeId;
+        }
+
+        /**
+         * copy the tree with the written tree ids, the files are replaced by the copied ones of the same paths
+         */
+        TreeNode copy(Map<String, FileState> copiedFiles) {
+            TreeNode copied = new TreeNode();
+            copied.treeId = treeId;
+            for (Map.Entry<String, Object> entry : children.entrySet()) {
+                Object child = entry.getValue();
+                copied.children.put(entry.getKey(), child instanceof TreeNode
+                        ? ((TreeNode) child).copy(copiedFiles)
+                        : copiedFiles.get(((FileState) child).path));
+            }
+            return copied;
+        }
+
+    }
+
+    private static class FileState {
+
+        private String path;
+
+        private final long seed;
+
+        private final boolean binary;
+
+        private int version;
+
+        /**
+         * the version in the index
+         */
+        private int indexedVersion;
+
+        private ObjectId blobId;
+
+        private int blobVersion;
+
+        FileState(String path, long seed, boolean binary) {
+            this.path = path;
+            this.seed = seed;
+            this.binary = binary;
+        }
+
+        /**
+         * the content is generated from the seed, and each version replaces a few lines of the previous one
+         */
+        byte[] content(int lineCount) {
+            Random random = new Random(seed);
+            if (binary) {
+                byte[] bytes = new byte[lineCount * 32];
+                random.nextBytes(bytes);
+                for (int v = 1; v <= version; v++) {
+                    bytes[new Random(seed + v).nextInt(bytes.length)] = 0;
+                }
+                bytes[0] = 0;
+                return bytes;
+            }
+            String[] lines = new String[lineCount];
+            for (int i = 0; i < lineCount; i++) {
+                lines[i] = "    private int field" + i + " = " + random.nextInt(1000000) + ";";
+            }
+            for (int v = 1; v <= version; v++) {
+                Random versionRandom = new Random(seed + v);
+                for (int j = 0; j < Math.max(1, lineCount / 20); j++) {
+                    int index = versionRandom.nextInt(lineCount);
+                    lines[index] = "    private long field" + index + " = " + versionRandom.nextInt(1000000) + "L;";
+                }
+            }
+            StringBuilder builder = new StringBuilder(lineCount * 40);
+            for (String line : lines) {
+                builder.append(line).append('\n');
+            }
+            return builder.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+    }
+
+}
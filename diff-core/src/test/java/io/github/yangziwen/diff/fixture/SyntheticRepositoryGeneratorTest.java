@@ -0,0 +1,111 @@
+package io.github.yangziwen.diff.fixture;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.diff.HistogramDiff;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.github.yangziwen.diff.calculate.DiffCalculator;
+import io.github.yangziwen.diff.calculate.DiffEntryWrapper;
+import io.github.yangziwen.diff.calculate.MergeBaseCalculator;
+
+public class SyntheticRepositoryGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGenerateDeterministically() throws Exception {
+        SyntheticRepositoryGenerator generator = SyntheticRepositoryGenerator.builder()
+                .seed(42L)
+                .fileCount(200)
+                .historyDepth(5)
+                .renameRatio(0.2)
+                .binaryRatio(0.1)
+                .build();
+
+        SyntheticRepository repository = generator.generate(folder.newFolder());
+        SyntheticRepository otherRepository = generator.generate(folder.newFolder());
+
+        Assert.assertEquals(6, repository.getCommits().size());
+        Assert.assertEquals(repository.getCommits(), otherRepository.getCommits());
+        Assert.assertEquals(repository.getRenamedPaths(), otherRepository.getRenamedPaths());
+    }
+
+    @Test
+    public void testGenerateHistoryWithRenames() throws Exception {
+        SyntheticRepository repository = SyntheticRepositoryGenerator.builder()
+                .fileCount(100)
+                .historyDepth(3)
+                .filesChangedPerCommit(5)
+                .renameRatio(1)
+                .checkout(false)
+                .build()
+                .generate(folder.newFolder());
+
+        List<DiffEntryWrapper> wrappers = newDiffCalculator().calculateDiff(
+                repository.getDirectory(), repository.getCommits().get(2), repository.getLastCommit(), false);
+
+        Assert.assertEquals(5, wrappers.size());
+        Assert.assertTrue(wrappers.stream()
+                .allMatch(wrapper -> wrapper.getDiffEntry().getChangeType() == ChangeType.RENAME));
+    }
+
+    @Test
+    public void testGenerateStagedAndUnstagedChanges() throws Exception {
+        SyntheticRepository repository = SyntheticRepositoryGenerator.builder()
+                .fileCount(100)
+                .historyDepth(1)
+                .stagedFileCount(3)
+                .unstagedFileCount(2)
+                .build()
+                .generate(folder.newFolder());
+
+        DiffCalculator calculator = newDiffCalculator();
+        String head = repository.getLastCommit();
+
+        Assert.assertEquals(new TreeSet<>(repository.getStagedPaths()),
+                toPathSet(calculator.calculateDiff(repository.getDirectory(), head, head, true)));
+
+        Set<String> changedPaths = new TreeSet<>(repository.getStagedPaths());
+        changedPaths.addAll(repository.getUnstagedPaths());
+        Assert.assertEquals(changedPaths,
+                toPathSet(calculator.calculateWorkingTreeDiff(repository.getDirectory(), head)));
+    }
+
+    @Test
+    public void testGenerateTopicBranch() throws Exception {
+        SyntheticRepository repository = SyntheticRepositoryGenerator.builder()
+                .fileCount(50)
+                .historyDepth(10)
+                .branchDepth(4)
+                .checkout(false)
+                .build()
+                .generate(folder.newFolder());
+
+        Assert.assertEquals(4, repository.getBranchCommits().size());
+        String mergeBase = new MergeBaseCalculator().calculateMergeBase(repository.getDirectory(),
+                repository.getLastCommit(), repository.getBranchCommits().get(3));
+        Assert.assertEquals(repository.getCommits().get(6), mergeBase);
+    }
+
+    private DiffCalculator newDiffCalculator() {
+        return DiffCalculator.builder()
+                .diffAlgorithm(new HistogramDiff())
+                .build();
+    }
+
+    private Set<String> toPathSet(List<DiffEntryWrapper> wrappers) {
+        return wrappers.stream()
+                .map(DiffEntryWrapper::getNewPath)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+}
@@ -7,13 +7,13 @@ import java.util.Map;
 
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.StringUtils;
-import org.eclipse.jgit.diff.Edit;
 import org.jacoco.core.internal.analysis.filter.IFilter;
 import org.jacoco.core.internal.analysis.filter.IFilterContext;
 import org.jacoco.core.internal.analysis.filter.IFilterOutput;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.MethodNode;
 
+import io.github.yangziwen.diff.calculate.ChangedLines;
 import io.github.yangziwen.diff.calculate.DiffEntryWrapper;
 import io.github.yangziwen.jacoco.util.CollectionUtil;
 import io.github.yangziwen.jacoco.util.FilterUtil;
@@ -23,7 +23,7 @@ public class DiffFilter implements IFilter {
 
     private static final String SOURCE_PATH_PREFIX = "/src/main/java/".replace("/", File.separator);
 
-    private Map<String, DiffEntryWrapper> classPathDiffEntryMap = new HashMap<>();
+    private Map<String, ChangedLines> classPathChangedLinesMap = new HashMap<>();
 
     public DiffFilter(List<MavenProject> projectList, List<DiffEntryWrapper> entries) {
         if (CollectionUtil.isEmpty(projectList)) {
@@ -44,7 +44,7 @@ public class DiffFilter implements IFilter {
                 name = StringUtils
                         .replaceOnce(name, SOURCE_PATH_PREFIX, "")
                         .replace(File.separator, "/");
-                classPathDiffEntryMap.put(name, entry);
+                classPathChangedLinesMap.put(name, ChangedLines.of(entry.getEditList()));
             }
         }
     }
@@ -59,24 +59,18 @@ public class DiffFilter implements IFilter {
 
         InsnList instructions = methodNode.instructions;
 
-        DiffEntryWrapper wrapper = classPathDiffEntryMap.get(classPath);
+        ChangedLines changedLines = classPathChangedLinesMap.get(classPath);
 
-        if (wrapper == null) {
+        if (changedLines == null) {
             output.ignore(instructions.getFirst(), instructions.getLast());
             return;
         }
 
         List<LineNumberNodeWrapper> nodeWrapperList = FilterUtil.collectLineNumberNodeList(instructions);
 
-        for (Edit edit : wrapper.getEditList()) {
-            if (edit.getType() != Edit.Type.INSERT && edit.getType() != Edit.Type.REPLACE) {
-                continue;
-            }
-            for (LineNumberNodeWrapper nodeWrapper : nodeWrapperList) {
-                int line = nodeWrapper.getLine();
-                if (line > edit.getBeginB() && line <= edit.getEndB()) {
-                    nodeWrapper.setIgnored(false);
-                }
+        for (LineNumberNodeWrapper nodeWrapper : nodeWrapperList) {
+            if (changedLines.contains(nodeWrapper.getLine())) {
+                nodeWrapper.setIgnored(false);
             }
         }
 
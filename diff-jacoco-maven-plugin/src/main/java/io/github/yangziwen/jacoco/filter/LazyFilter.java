@@ -0,0 +1,68 @@
+package io.github.yangziwen.jacoco.filter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.maven.plugin.logging.Log;
+import org.jacoco.core.internal.analysis.filter.IFilter;
+import org.jacoco.core.internal.analysis.filter.IFilterContext;
+import org.jacoco.core.internal.analysis.filter.IFilterOutput;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * The lazy filter
+ * a filter whose delegate is created in the background, and only waited for when the first method is filtered,
+ * the filter does nothing if the delegate fails to be created
+ */
+public class LazyFilter implements IFilter {
+
+    private static final IFilter NO_OP_FILTER = (methodNode, context, output) -> { };
+
+    private final String name;
+
+    private final CompletableFuture<? extends IFilter> future;
+
+    private final Log log;
+
+    private volatile IFilter filter;
+
+    public LazyFilter(String name, CompletableFuture<? extends IFilter> future, Log log) {
+        this.name = name;
+        this.future = future;
+        this.log = log;
+    }
+
+    @Override
+    public void filter(
+            MethodNode methodNode,
+            IFilterContext context,
+            IFilterOutput output) {
+        getFilter().filter(methodNode, context, output);
+    }
+
+    private IFilter getFilter() {
+        IFilter resolved = filter;
+        if (resolved == null) {
+            synchronized (this) {
+                if (filter == null) {
+                    filter = resolveFilter();
+                }
+                resolved = filter;
+            }
+        }
+        return resolved;
+    }
+
+    private IFilter resolveFilter() {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            log.error("failed to prepare the " + name + ", the filter is skipped", e.getCause());
+            return NO_OP_FILTER;
+        } catch (RuntimeException e) {
+            log.error("failed to prepare the " + name + ", the filter is skipped", e);
+            return NO_OP_FILTER;
+        }
+    }
+
+}
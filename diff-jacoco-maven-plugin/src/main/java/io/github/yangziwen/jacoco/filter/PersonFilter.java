@@ -2,6 +2,7 @@ package io.github.yangziwen.jacoco.filter;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -9,33 +10,38 @@ import java.util.Map;
 
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.StringUtils;
-import org.eclipse.jgit.blame.BlameResult;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.jacoco.core.internal.analysis.filter.IFilter;
 import org.jacoco.core.internal.analysis.filter.IFilterContext;
 import org.jacoco.core.internal.analysis.filter.IFilterOutput;
+import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.LineNumberNode;
 import org.objectweb.asm.tree.MethodNode;
 
+import io.github.yangziwen.diff.calculate.BoundedBlameResult;
 import io.github.yangziwen.jacoco.util.CollectionUtil;
 import io.github.yangziwen.jacoco.util.FilterUtil;
-import io.github.yangziwen.jacoco.util.LineNumberNodeWrapper;
 
 public class PersonFilter implements IFilter {
 
     private static final String SOURCE_PATH_PREFIX = "/src/main/java/".replace("/", File.separator);
 
-    private Map<String, BlameResult> classPathBlameResultMap = new HashMap<>();
+    /**
+     * the 0-based lines accepted by the person info of each class path,
+     * so that neither the blame results nor the persons are retained, and the lines are checked without allocation
+     */
+    private Map<String, BitSet> classPathAcceptedLinesMap = new HashMap<>();
 
     private PersonInfo personInfo;
 
-    public PersonFilter(List<MavenProject> projectList, PersonInfo personInfo, List<BlameResult> blameResults) {
+    public PersonFilter(List<MavenProject> projectList, PersonInfo personInfo, List<BoundedBlameResult> blameResults) {
         if (CollectionUtil.isEmpty(projectList)) {
             return;
         }
         for (MavenProject  project : projectList) {
             String modulePrefix = generateFullModulePrefix(project);
-            for (BlameResult blameResult : blameResults) {
+            for (BoundedBlameResult blameResult : blameResults) {
                 String path = blameResult.getResultPath();
                 if (!path.startsWith(modulePrefix)) {
                     continue;
@@ -50,12 +56,28 @@ public class PersonFilter implements IFilter {
                 name = StringUtils
                         .replaceOnce(name, SOURCE_PATH_PREFIX, "")
                         .replace(File.separator, "/");
-                classPathBlameResultMap.put(name, blameResult);
+                classPathAcceptedLinesMap.put(name, collectAcceptedLines(blameResult, personInfo));
             }
         }
         this.personInfo = personInfo;
     }
 
+    private BitSet collectAcceptedLines(BoundedBlameResult blameResult, PersonInfo personInfo) {
+        // the distinct persons are checked once, instead of once per line
+        boolean[] acceptedPersons = new boolean[blameResult.getPersonCount()];
+        for (int i = 0; i < acceptedPersons.length; i++) {
+            acceptedPersons[i] = personInfo.accept(blameResult.getPerson(i));
+        }
+        BitSet acceptedLines = new BitSet(blameResult.getLineCount());
+        for (int line = 0; line < blameResult.getLineCount(); line++) {
+            int index = personInfo.getType().getPersonIndex(blameResult, line);
+            if (index >= 0 && acceptedPersons[index]) {
+                acceptedLines.set(line);
+            }
+        }
+        return acceptedLines;
+    }
+
     private String generateFullModulePrefix(MavenProject project) {
         List<String> moduleList = new ArrayList<>();
         while (project != null && project.getParent() != null) {
@@ -80,31 +102,35 @@ public class PersonFilter implements IFilter {
 
         InsnList instructions = methodNode.instructions;
 
-        BlameResult blameResult = classPathBlameResultMap.get(classPath);
+        BitSet acceptedLines = classPathAcceptedLinesMap.get(classPath);
 
-        if (blameResult == null) {
+        if (acceptedLines == null) {
             output.ignore(instructions.getFirst(), instructions.getLast());
             return;
         }
 
-        List<LineNumberNodeWrapper> nodeWrapperList = FilterUtil.collectLineNumberNodeList(instructions);
-
-        for (LineNumberNodeWrapper nodeWrapper : nodeWrapperList) {
-            int line = nodeWrapper.getLine() - 1;
-            PersonIdent person = personInfo.getType().getPerson(blameResult, line);
-            if (personInfo.accept(person)) {
-                nodeWrapper.setIgnored(false);
+        // the instructions from each line number node to the next one are ignored if the line is not accepted
+        AbstractInsnNode last = instructions.getLast();
+        LineNumberNode lineNode = null;
+        for (AbstractInsnNode node = instructions.getFirst(); node != last; node = node.getNext()) {
+            if (!(node instanceof LineNumberNode)) {
+                continue;
             }
-        }
-
-        for (LineNumberNodeWrapper nodeWrapper : nodeWrapperList) {
-            if (nodeWrapper.isIgnored()) {
-                output.ignore(nodeWrapper.getNode(), nodeWrapper.getNext());
+            if (lineNode != null && !isAccepted(acceptedLines, lineNode.line)) {
+                output.ignore(lineNode, node);
             }
+            lineNode = (LineNumberNode) node;
+        }
+        if (lineNode != null && !isAccepted(acceptedLines, lineNode.line)) {
+            output.ignore(lineNode, last);
         }
 
     }
 
+    private boolean isAccepted(BitSet acceptedLines, int line) {
+        return line > 0 && acceptedLines.get(line - 1);
+    }
+
     public static class PersonInfo {
 
         private String name;
@@ -150,19 +176,26 @@ public class PersonFilter implements IFilter {
 
         AUTHOR {
             @Override
-            public PersonIdent getPerson(BlameResult blameResult, int line) {
-                return blameResult.getSourceAuthor(line);
+            public int getPersonIndex(BoundedBlameResult blameResult, int line) {
+                return blameResult.getSourceAuthorIndex(line);
             }
         },
 
         COMMITTER {
             @Override
-            public PersonIdent getPerson(BlameResult blameResult, int line) {
-                return blameResult.getSourceCommitter(line);
+            public int getPersonIndex(BoundedBlameResult blameResult, int line) {
+                return blameResult.getSourceCommitterIndex(line);
             }
         };
 
-        public abstract PersonIdent getPerson(BlameResult blameResult, int line);
+        /**
+         * get the index of the person of the line in the persons of the blame result
+         *
+         * @param blameResult   the blame result
+         * @param line          the 0-based line number
+         * @return the index of the person, or -1 if the line has no person
+         */
+        public abstract int getPersonIndex(BoundedBlameResult blameResult, int line);
 
     }
 
@@ -1,7 +1,12 @@
 package io.github.yangziwen.jacoco.maven;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
@@ -11,17 +16,19 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.StringUtils;
-import org.eclipse.jgit.blame.BlameResult;
-import org.eclipse.jgit.diff.HistogramDiff;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.jacoco.core.internal.analysis.filter.IFilter;
 import org.jacoco.maven.AgentMojo;
 
+import io.github.yangziwen.diff.calculate.AdaptiveDiffAlgorithm;
 import io.github.yangziwen.diff.calculate.BlameCalculator;
+import io.github.yangziwen.diff.calculate.BoundedBlameResult;
 import io.github.yangziwen.diff.calculate.DiffCalculator;
 import io.github.yangziwen.diff.calculate.DiffEntryWrapper;
 import io.github.yangziwen.diff.calculate.MergeBaseCalculator;
+import io.github.yangziwen.diff.calculate.RepositorySession;
 import io.github.yangziwen.jacoco.filter.DiffFilter;
+import io.github.yangziwen.jacoco.filter.LazyFilter;
 import io.github.yangziwen.jacoco.filter.PersonFilter;
 import io.github.yangziwen.jacoco.filter.PersonFilter.PersonInfo;
 import io.github.yangziwen.jacoco.filter.PersonFilter.PersonType;
@@ -64,6 +71,18 @@ public class DiffAgentMojo extends AgentMojo {
     @Parameter(property = "jacoco.diff.include.staged", defaultValue = "true")
     private boolean includeStagedCodes;
 
+    @Parameter(property = "jacoco.diff.cache", defaultValue = "false")
+    private boolean diffCacheEnabled;
+
+    @Parameter(property = "jacoco.blame.parallelism", defaultValue = "4")
+    private int blameParallelism;
+
+    @Parameter(property = "jacoco.blame.cache", defaultValue = "false")
+    private boolean blameCacheEnabled;
+
+    @Parameter(property = "jacoco.mergebase.cache", defaultValue = "false")
+    private boolean mergeBaseCacheEnabled;
+
     @Parameter(defaultValue = "${reactorProjects}", readonly = true, required = true)
     private List<MavenProject> reactorProjects;
 
@@ -96,70 +115,107 @@ public class DiffAgentMojo extends AgentMojo {
 
         getLog().info("using git repo dir: " + gitDir.getAbsolutePath());
 
-        if (StringUtils.isNotBlank(againstRef)) {
-            String mergeBase = calculateMergeBase(gitDir, againstRef, REF_HEAD);
-            oldRev = mergeBase;
-            newRev = REF_HEAD;
-            getLog().info(mergeBase + " is the merge base between " + againstRef + " and " + REF_HEAD);
+        // the git work runs in the background while the project compiles and tests,
+        // and the filters only wait for it when they are first used by the report
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "diff-check-prepare-agent");
+            thread.setDaemon(true);
+            return thread;
+        });
+        RepositorySession session = RepositorySession.open(gitDir);
+        try {
+            CompletableFuture<?> lastFuture = injectDiffFilter(session, executor);
+            lastFuture.whenComplete((result, error) -> {
+                session.close();
+                executor.shutdown();
+            });
+        } catch (Exception e) {
+            session.close();
+            executor.shutdown();
+            throw e;
         }
 
-        getLog().info("calculating diff between " + oldRev + " and " + newRev + ", includeStagedCodes: " + includeStagedCodes);
+    }
 
-        DiffCalculator calculator = DiffCalculator.builder()
-                .diffAlgorithm(new HistogramDiff())
-                .build();
+    private CompletableFuture<?> injectDiffFilter(RepositorySession session, Executor executor) throws Exception {
 
-        List<DiffEntryWrapper> diffEntryList = calculator.calculateDiff(gitDir, oldRev, newRev, includeStagedCodes)
-                .stream()
-                .filter(diffEntry -> !diffEntry.isDeleted())
-                .collect(Collectors.toList());
+        CompletableFuture<String> oldRevFuture = StringUtils.isNotBlank(againstRef)
+                ? calculateMergeBase(session, againstRef, REF_HEAD, executor)
+                : CompletableFuture.completedFuture(oldRev);
+        String diffNewRev = StringUtils.isNotBlank(againstRef) ? REF_HEAD : newRev;
 
-        getLog().info("found " + diffEntryList.size() + " non-deleted diff entries and add diff filter");
+        DiffCalculator calculator = DiffCalculator.builder()
+                .diffAlgorithm(new AdaptiveDiffAlgorithm())
+                .editListCacheEnabled(diffCacheEnabled)
+                .build();
 
-        for (DiffEntryWrapper entry : diffEntryList) {
-            getLog().info("  diff entry: " + entry.getNewPath());
-        }
-        IFilter diffFilter = new DiffFilter(reactorProjects, diffEntryList);
+        CompletableFuture<List<DiffEntryWrapper>> diffFuture = oldRevFuture.thenCompose(diffOldRev -> {
+            getLog().info("calculating diff between " + diffOldRev + " and " + diffNewRev + ", includeStagedCodes: " + includeStagedCodes);
+            return calculator.calculateDiffAsync(session, diffOldRev, diffNewRev, includeStagedCodes, executor);
+        }).thenApply(wrappers -> {
+            List<DiffEntryWrapper> diffEntryList = wrappers.stream()
+                    .filter(diffEntry -> !diffEntry.isDeleted())
+                    .collect(Collectors.toList());
+            getLog().info("found " + diffEntryList.size() + " non-deleted diff entries for diff filter");
+            for (DiffEntryWrapper entry : diffEntryList) {
+                getLog().info("  diff entry: " + entry.getNewPath());
+            }
+            return diffEntryList;
+        });
 
-        FilterUtil.appendFilter(diffFilter);
+        getLog().info("add diff filter");
+        FilterUtil.appendFilter(new LazyFilter("diff filter",
+                diffFuture.thenApply(diffEntryList -> new DiffFilter(reactorProjects, diffEntryList)), getLog()));
 
-        if (CollectionUtil.isEmpty(diffEntryList)) {
-            return;
+        if (!needAuthorFilter() && !needCommitterFilter()) {
+            return diffFuture;
         }
 
-        if (needAuthorFilter() || needCommitterFilter()) {
-            List<String> filePathList = diffEntryList.stream()
-                    .map(DiffEntryWrapper::getNewPath)
-                    .collect(Collectors.toList());
-
-            List<BlameResult> blameResults = BlameCalculator.builder().build()
-                    .calculate(gitDir, filePathList, newRev);
-
-            if (needAuthorFilter()) {
-                getLog().info("add author filter, authorName is " + authorName + " , authorEmail is " + authorEmail );
-                PersonInfo author = new PersonInfo(authorName, authorEmail, PersonType.AUTHOR);
-                IFilter authorFilter = new PersonFilter(reactorProjects, author, blameResults);
-                FilterUtil.appendFilter(authorFilter);
+        CompletableFuture<List<BoundedBlameResult>> blameFuture = diffFuture.thenCompose(diffEntryList -> {
+            if (CollectionUtil.isEmpty(diffEntryList)) {
+                return CompletableFuture.completedFuture(Collections.<BoundedBlameResult>emptyList());
             }
+            // only the changed lines are checked by the person filters, so that only they are blamed,
+            // and the lines older than the old revision are never accepted, so that the blame stops at it
+            String diffOldRev = oldRevFuture.join();
+            return BlameCalculator.builder()
+                    .parallelism(blameParallelism)
+                    .blameCacheEnabled(blameCacheEnabled)
+                    .build()
+                    .calculateBoundedChangedLinesAsync(session, diffEntryList, diffOldRev, diffNewRev, executor);
+        });
+
+        if (needAuthorFilter()) {
+            getLog().info("add author filter, authorName is " + authorName + " , authorEmail is " + authorEmail );
+            PersonInfo author = new PersonInfo(authorName, authorEmail, PersonType.AUTHOR);
+            FilterUtil.appendFilter(new LazyFilter("author filter",
+                    blameFuture.thenApply(blameResults -> new PersonFilter(reactorProjects, author, blameResults)), getLog()));
+        }
 
-            if (needCommitterFilter()) {
-                getLog().info("add committer filter, committerName is " + committerName + " , committerEmail is " + committerEmail);
-                PersonInfo committer = new PersonInfo(committerName, committerEmail, PersonType.COMMITTER);
-                IFilter committerFilter = new PersonFilter(reactorProjects, committer, blameResults);
-                FilterUtil.appendFilter(committerFilter);
-            }
+        if (needCommitterFilter()) {
+            getLog().info("add committer filter, committerName is " + committerName + " , committerEmail is " + committerEmail);
+            PersonInfo committer = new PersonInfo(committerName, committerEmail, PersonType.COMMITTER);
+            FilterUtil.appendFilter(new LazyFilter("committer filter",
+                    blameFuture.thenApply(blameResults -> new PersonFilter(reactorProjects, committer, blameResults)), getLog()));
         }
 
-    }
+        return blameFuture;
 
-    private String calculateMergeBase(File gitDir, String ref1, String ref2) throws Exception {
+    }
 
-        try {
-            return new MergeBaseCalculator().calculateMergeBase(gitDir, ref1, ref2);
-        } catch (Exception e) {
-            getLog().error("failed to find the merge base between [" + ref1 + "] and [" + ref2 + "]");
-            throw e;
-        }
+    private CompletableFuture<String> calculateMergeBase(RepositorySession session, String ref1, String ref2, Executor executor) {
+
+        return MergeBaseCalculator.builder()
+                .mergeBaseCacheEnabled(mergeBaseCacheEnabled)
+                .build()
+                .calculateMergeBaseAsync(session, ref1, ref2, executor)
+                .whenComplete((mergeBase, error) -> {
+                    if (error != null) {
+                        getLog().error("failed to find the merge base between [" + ref1 + "] and [" + ref2 + "]");
+                    } else {
+                        getLog().info(mergeBase + " is the merge base between " + ref1 + " and " + ref2);
+                    }
+                });
 
     }
 
@@ -24,12 +24,15 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.eclipse.jgit.diff.HistogramDiff;
 
+import io.github.yangziwen.diff.calculate.AdaptiveDiffAlgorithm;
 import io.github.yangziwen.diff.calculate.DiffCalculator;
 import io.github.yangziwen.diff.calculate.DiffEntryWrapper;
+import io.github.yangziwen.diff.calculate.DiffPhase;
+import io.github.yangziwen.diff.calculate.DiffProfile;
 import io.github.yangziwen.pmd.cli.PMDCommandLineInterface;
 import io.github.yangziwen.pmd.cli.PMDParameters;
 import io.github.yangziwen.pmd.filter.DiffLineFilter;
@@ -456,24 +459,42 @@ public class Main {
             oldRev = includeStagedCodes ? "HEAD" : "HEAD~";
         }
         String newRev = "HEAD";
-        DiffCalculator calculator = DiffCalculator.builder()
-                .comparator(configuration.isIgnoreWhitespace() ? RawTextComparator.WS_IGNORE_ALL : RawTextComparator.DEFAULT)
-                .diffAlgorithm(new HistogramDiff()).build();
-
         try {
-            List<DiffEntryWrapper> diffEntryList = calculator.calculateDiff(repoDir, oldRev, newRev, includeStagedCodes)
-                    .stream()
-                    .filter(diffEntry -> !diffEntry.isDeleted())
-                    .filter(diffEntry -> fileSelector.accept(diffEntry.getNewFile().getParentFile(), diffEntry.getNewFile().getName()))
-                    .collect(Collectors.toList());
-
-            if (StringUtils.isNotBlank(configuration.getExcludeRegexp())) {
-                Pattern excludePattern = Pattern.compile(configuration.getExcludeRegexp());
-                diffEntryList.removeIf(diffEntry -> excludePattern.matcher(diffEntry.getAbsoluteNewPath()).matches());
-            }
+            Pattern excludePattern = StringUtils.isNotBlank(configuration.getExcludeRegexp())
+                    ? Pattern.compile(configuration.getExcludeRegexp())
+                    : null;
+            File normalizedRepoDir = new File(FilenameUtils.normalize(repoDir.getAbsolutePath()));
+            DiffProfile profile = configuration.isProfile() || configuration.isBenchmark() ? new DiffProfile() : null;
+            DiffCalculator calculator = DiffCalculator.builder()
+                    .comparator(configuration.isIgnoreWhitespace() ? RawTextComparator.WS_IGNORE_ALL : RawTextComparator.DEFAULT)
+                    .parallelism(configuration.getThreads())
+                    .editListCacheEnabled(configuration.isDiffCacheEnabled())
+                    .pathFilter(path -> {
+                        File file = new File(normalizedRepoDir, path);
+                        if (!fileSelector.accept(file.getParentFile(), file.getName())) {
+                            return false;
+                        }
+                        return excludePattern == null || !excludePattern.matcher(file.getAbsolutePath()).matches();
+                    })
+                    .phaseListener(profile)
+                    .fileTimeoutMillis(configuration.getFileDiffTimeoutMillis())
+                    .totalTimeoutMillis(configuration.getTotalDiffTimeoutMillis())
+                    .diffAlgorithm(new AdaptiveDiffAlgorithm()).build();
+
+            List<DiffEntryWrapper> diffEntryList = new ArrayList<>();
+            // only the entries to check are retained, the others are dropped as soon as they are calculated
+            calculator.calculateDiff(repoDir, oldRev, newRev, includeStagedCodes, diffEntry -> {
+                if (!diffEntry.isDeleted()) {
+                    diffEntryList.add(diffEntry);
+                }
+            });
 
              DIFF_ENTRY_LIST.addAll(diffEntryList);
 
+             if (profile != null) {
+                 reportDiffProfile(configuration, profile);
+             }
+
              return diffEntryList.stream()
                     .map(DiffEntryWrapper::getNewFile)
                     .collect(Collectors.toList());
@@ -485,6 +506,19 @@ public class Main {
         }
     }
 
+    private static void reportDiffProfile(PMDConfiguration configuration, DiffProfile profile) {
+        if (configuration.isProfile()) {
+            System.err.print(profile.format());
+        }
+        if (configuration.isBenchmark()) {
+            // only the rules can be marked with names, so that the diff phases are listed along with the rules
+            for (DiffPhase phase : DiffPhase.values()) {
+                Benchmarker.mark(Benchmark.Rule, "diff: " + phase.getLabel(),
+                        profile.getElapsedNanos(phase), profile.getFileCount(phase));
+            }
+        }
+    }
+
     /**
      * Determines all the files, that should be analyzed by PMD.
      * @param configuration contains either the file path or the DB URI, from where to load the files
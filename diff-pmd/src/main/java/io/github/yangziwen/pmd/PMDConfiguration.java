@@ -32,6 +32,22 @@ public class PMDConfiguration extends net.sourceforge.pmd.PMDConfiguration {
     @Setter
     private boolean ignoreWhitespace;
 
+    @Getter
+    @Setter
+    private boolean diffCacheEnabled;
+
+    @Getter
+    @Setter
+    private boolean profile;
+
+    @Getter
+    @Setter
+    private long fileDiffTimeoutMillis;
+
+    @Getter
+    @Setter
+    private long totalDiffTimeoutMillis;
+
     @Override
     public Renderer createRenderer(boolean withReportWriter) {
         Renderer renderer = RendererFactory.createRenderer(getReportFormat(), getReportProperties());
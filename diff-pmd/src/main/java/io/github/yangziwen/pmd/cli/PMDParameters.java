@@ -41,6 +41,18 @@ public class PMDParameters {
     @Parameter(names = { "-include-staged-codes", "-is" }, description = "Whether to consider codes in the staging area.")
     private boolean includeStagedCodes = false;
 
+    @Parameter(names = { "-diff-cache", "-dc" }, description = "Whether to cache the calculated diff edits in the .git/diff-check directory.")
+    private boolean diffCacheEnabled = false;
+
+    @Parameter(names = { "-profile" }, description = "Whether to print the time, bytes and files spent on each phase of the diff calculation to System.err.")
+    private boolean profile = false;
+
+    @Parameter(names = { "-file-diff-timeout" }, description = "The max milliseconds to diff one file, the file taking longer is checked as a whole.")
+    private long fileDiffTimeoutMillis = 0L;
+
+    @Parameter(names = { "-total-diff-timeout" }, description = "The max milliseconds to diff all the files, the files left are checked as a whole.")
+    private long totalDiffTimeoutMillis = 0L;
+
     @Parameter(names = { "-exclude-regexp", "-er" }, description = "The file path to exclude for the check.")
     private String excludeRegexp;
 
@@ -169,6 +181,10 @@ public class PMDParameters {
         configuration.setIncludeStagedCodes(params.isIncludeStagedCodes());
         configuration.setExcludeRegexp(params.getExcludeRegexp());
         configuration.setIgnoreWhitespace(params.ignoreWhitespace);
+        configuration.setDiffCacheEnabled(params.isDiffCacheEnabled());
+        configuration.setProfile(params.isProfile());
+        configuration.setFileDiffTimeoutMillis(params.getFileDiffTimeoutMillis());
+        configuration.setTotalDiffTimeoutMillis(params.getTotalDiffTimeoutMillis());
 
         LanguageVersion languageVersion = LanguageRegistry.findLanguageVersionByTerseName(params.getLanguage() + " " + params.getVersion());
         if(languageVersion != null) {
@@ -269,6 +285,22 @@ public class PMDParameters {
         return includeStagedCodes;
     }
 
+    public boolean isDiffCacheEnabled() {
+        return diffCacheEnabled;
+    }
+
+    public boolean isProfile() {
+        return profile;
+    }
+
+    public long getFileDiffTimeoutMillis() {
+        return fileDiffTimeoutMillis;
+    }
+
+    public long getTotalDiffTimeoutMillis() {
+        return totalDiffTimeoutMillis;
+    }
+
     public String getExcludeRegexp() {
 		return excludeRegexp;
 	}
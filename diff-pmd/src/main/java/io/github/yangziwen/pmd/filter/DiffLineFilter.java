@@ -4,32 +4,31 @@ import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
-import org.eclipse.jgit.diff.Edit;
-
+import io.github.yangziwen.diff.calculate.ChangedLines;
 import io.github.yangziwen.diff.calculate.DiffEntryWrapper;
 import net.sourceforge.pmd.RuleViolation;
 
 public class DiffLineFilter {
 
-    private final ConcurrentMap<String, List<Edit>> fileEditMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ChangedLines> fileChangedLinesMap = new ConcurrentHashMap<>();
 
     public DiffLineFilter(List<DiffEntryWrapper> diffEntryList) {
         for (DiffEntryWrapper diffEntry : diffEntryList) {
-            fileEditMap.put(diffEntry.getAbsoluteNewPath(), diffEntry.getEditList());
+            fileChangedLinesMap.put(diffEntry.getAbsoluteNewPath(), ChangedLines.of(diffEntry.getEditList()));
         }
     }
 
     public boolean accept(RuleViolation violation) {
-        List<Edit> editList = fileEditMap.get(violation.getFilename());
-        if (editList == null || editList.isEmpty()) {
+        ChangedLines changedLines = fileChangedLinesMap.get(violation.getFilename());
+        if (changedLines == null || changedLines.isEmpty()) {
             return false;
         }
-        for (Edit edit : editList) {
-            if (edit.getBeginB() <= violation.getBeginLine() && edit.getEndB() >= violation.getEndLine()) {
-                return true;
-            }
-        }
-        return false;
+        int beginLine = violation.getBeginLine();
+        int endLine = violation.getEndLine();
+        // the violation may also begin at the line right before the changed lines,
+        // or be on the line right before the edits which only delete lines
+        return changedLines.covers(beginLine + 1, endLine)
+                || beginLine == endLine && changedLines.follows(beginLine + 1);
     }
 
 }
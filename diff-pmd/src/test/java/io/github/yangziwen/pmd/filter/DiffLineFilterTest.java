@@ -0,0 +1,80 @@
+package io.github.yangziwen.pmd.filter;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jgit.diff.Edit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import io.github.yangziwen.diff.calculate.DiffEntryWrapper;
+import net.sourceforge.pmd.RuleViolation;
+
+@RunWith(PowerMockRunner.class)
+public class DiffLineFilterTest {
+
+    private static final String FILE_NAME = "test";
+
+    @Test
+    public void testAccept() {
+        DiffLineFilter filter = newFilter(Arrays.asList(new Edit(4, 6, 5, 12)));
+
+        Assert.assertTrue(filter.accept(newViolation(10, 10)));
+        Assert.assertTrue(filter.accept(newViolation(5, 12)));
+        Assert.assertFalse(filter.accept(newViolation(4, 6)));
+        Assert.assertFalse(filter.accept(newViolation(10, 13)));
+    }
+
+    @Test
+    public void testAcceptWithDeletedLines() {
+        DiffLineFilter filter = newFilter(Arrays.asList(new Edit(5, 8, 5, 5)));
+
+        Assert.assertTrue(filter.accept(newViolation(5, 5)));
+        Assert.assertFalse(filter.accept(newViolation(4, 4)));
+        Assert.assertFalse(filter.accept(newViolation(6, 6)));
+        Assert.assertFalse(filter.accept(newViolation(5, 6)));
+    }
+
+    @Test
+    public void testAcceptAsScanningTheEdits() {
+        List<Edit> editList = Arrays.asList(
+                new Edit(0, 0, 0, 2),
+                new Edit(3, 5, 5, 5),
+                new Edit(7, 8, 7, 10),
+                new Edit(12, 12, 12, 13),
+                new Edit(15, 17, 16, 16));
+        DiffLineFilter filter = newFilter(editList);
+
+        for (int beginLine = 1; beginLine <= 20; beginLine++) {
+            for (int endLine = beginLine; endLine <= 20; endLine++) {
+                boolean expected = false;
+                for (Edit edit : editList) {
+                    if (edit.getBeginB() <= beginLine && edit.getEndB() >= endLine) {
+                        expected = true;
+                    }
+                }
+                Assert.assertEquals(beginLine + "-" + endLine,
+                        expected, filter.accept(newViolation(beginLine, endLine)));
+            }
+        }
+    }
+
+    private DiffLineFilter newFilter(List<Edit> editList) {
+        DiffEntryWrapper wrapper = PowerMockito.mock(DiffEntryWrapper.class);
+        PowerMockito.doReturn(FILE_NAME).when(wrapper).getAbsoluteNewPath();
+        PowerMockito.doReturn(editList).when(wrapper).getEditList();
+        return new DiffLineFilter(Arrays.asList(wrapper));
+    }
+
+    private RuleViolation newViolation(int beginLine, int endLine) {
+        RuleViolation violation = PowerMockito.mock(RuleViolation.class);
+        PowerMockito.doReturn(FILE_NAME).when(violation).getFilename();
+        PowerMockito.doReturn(beginLine).when(violation).getBeginLine();
+        PowerMockito.doReturn(endLine).when(violation).getEndLine();
+        return violation;
+    }
+
+}